@@ -1,5 +1,6 @@
 package com.chess.engine;
 
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.BoardUtils;
 import com.chess.engine.player.BlackPlayer;
 import com.chess.engine.player.Player;
@@ -31,7 +32,12 @@ public enum Color {
 
         @Override
         public boolean isPawnPromotionSquare(final int position) {
-            return BoardUtils.INSTANCE.FIRST_ROW.get(position);
+            return BitboardUtils.isOccupied(BoardUtils.FIRST_ROW, position);
+        }
+
+        @Override
+        public Color opposite() {
+            return BLACK;
         }
 
         @Override
@@ -100,7 +106,12 @@ public enum Color {
 
         @Override
         public boolean isPawnPromotionSquare(final int position) {
-            return BoardUtils.INSTANCE.EIGHTH_ROW.get(position);
+            return BitboardUtils.isOccupied(BoardUtils.EIGHTH_ROW, position);
+        }
+
+        @Override
+        public Color opposite() {
+            return WHITE;
         }
 
         @Override
@@ -167,6 +178,8 @@ public enum Color {
 
     public abstract boolean isPawnPromotionSquare(int position);
 
+    public abstract Color opposite();
+
     public abstract Player choosePlayerByColor(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer);
 
     private final static int[] WHITE_PAWN_PREFERRED_COORDINATES = {
@@ -0,0 +1,341 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// a bitboard is a long where bit i is set when tile coordinate i is occupied,
+// so bit 0 is a8 and bit 63 is h1, matching the tile numbering used everywhere else
+public enum BitboardUtils {
+
+    INSTANCE;
+
+    public static final int NUM_PIECE_TYPES = 6;
+    public static final int NUM_PIECE_BITBOARDS = NUM_PIECE_TYPES * 2;
+
+    private static final int[][] KNIGHT_DELTAS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_DELTAS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] WHITE_PAWN_DELTAS = {{-1, -1}, {-1, 1}};
+    private static final int[][] BLACK_PAWN_DELTAS = {{1, -1}, {1, 1}};
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    //what a knight, king or pawn on each tile attacks, the pawn tables by color ordinal. A pawn jump is only
+    //there for a pawn still on the row it starts from
+    private static final long[] KNIGHT_ATTACKS = leaperTable(KNIGHT_DELTAS);
+    private static final long[] KING_ATTACKS = leaperTable(KING_DELTAS);
+    private static final long[][] PAWN_ATTACKS = {leaperTable(WHITE_PAWN_DELTAS), leaperTable(BLACK_PAWN_DELTAS)};
+    private static final long[][] PAWN_PUSHES = new long[Color.values().length][];
+    private static final long[][] PAWN_JUMPS = new long[Color.values().length][];
+    //one capture per piece on the board at most, plus the tile's first occupant
+    //the longest exchange on one tile, every piece taking in turn, and the gain before it
+    static final int MAX_EXCHANGES = 33;
+    //by pair of tiles on a rank, file or diagonal, the tiles strictly between them and the whole line through them
+    private static final long[][] BETWEEN = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+    private static final long[][] LINE = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+    static {
+        for (final Color color : Color.values()) {
+            final int startRow = color.isWhite() ? BoardUtils.NUM_TILES_PER_ROW - 2 : 1;
+            PAWN_PUSHES[color.ordinal()] = leaperTable(new int[][] {{color.getDirection(), 0}});
+            PAWN_JUMPS[color.ordinal()] = leaperTable(new int[][] {{2 * color.getDirection(), 0}});
+            for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+                if (coordinate / BoardUtils.NUM_TILES_PER_ROW != startRow) {
+                    PAWN_JUMPS[color.ordinal()][coordinate] = 0L;
+                }
+            }
+        }
+        for (int first = 0; first < BoardUtils.NUM_TILES; first++) {
+            for (int second = 0; second < BoardUtils.NUM_TILES; second++) {
+                if (isOccupied(rookAttacks(first, 0L), second)) {
+                    BETWEEN[first][second] = rookAttacks(first, tileMask(second)) & rookAttacks(second, tileMask(first));
+                    LINE[first][second] = (rookAttacks(first, 0L) & rookAttacks(second, 0L)) | tileMask(first) | tileMask(second);
+                } else if (isOccupied(bishopAttacks(first, 0L), second)) {
+                    BETWEEN[first][second] = bishopAttacks(first, tileMask(second)) & bishopAttacks(second, tileMask(first));
+                    LINE[first][second] = (bishopAttacks(first, 0L) & bishopAttacks(second, 0L)) | tileMask(first) | tileMask(second);
+                }
+            }
+        }
+    }
+
+    public static int pieceIndex(final Color color,
+                                 final PieceType pieceType) {
+        return color.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public static int pieceIndex(final Piece piece) {
+        return pieceIndex(piece.getPieceColor(), piece.getPieceType());
+    }
+
+    public static long tileMask(final int coordinate) {
+        return 1L << coordinate;
+    }
+
+    public static boolean isOccupied(final long bitboard,
+                                     final int coordinate) {
+        return (bitboard & tileMask(coordinate)) != 0;
+    }
+
+    public static int firstTile(final long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static long knightAttacks(final int coordinate) {
+        return KNIGHT_ATTACKS[coordinate];
+    }
+
+    public static long kingAttacks(final int coordinate) {
+        return KING_ATTACKS[coordinate];
+    }
+
+    //the tiles a pawn of the given color standing on coordinate can capture on
+    public static long pawnAttacks(final Color color,
+                                   final int coordinate) {
+        return PAWN_ATTACKS[color.ordinal()][coordinate];
+    }
+
+    //the tile a pawn of the given color standing on coordinate moves forward to
+    public static long pawnPushes(final Color color,
+                                  final int coordinate) {
+        return PAWN_PUSHES[color.ordinal()][coordinate];
+    }
+
+    //the tile two ahead of a pawn of the given color on its starting row, nothing from any other row
+    public static long pawnJumps(final Color color,
+                                 final int coordinate) {
+        return PAWN_JUMPS[color.ordinal()][coordinate];
+    }
+
+    public static long rookAttacks(final int coordinate,
+                                   final long occupancy) {
+        return MagicBitboards.rookAttacks(coordinate, occupancy);
+    }
+
+    public static long bishopAttacks(final int coordinate,
+                                     final long occupancy) {
+        return MagicBitboards.bishopAttacks(coordinate, occupancy);
+    }
+
+    public static long queenAttacks(final int coordinate,
+                                    final long occupancy) {
+        return rookAttacks(coordinate, occupancy) | bishopAttacks(coordinate, occupancy);
+    }
+
+    //the tiles a piece of the given type and color standing on coordinate attacks
+    public static long pieceAttacks(final Color color,
+                                    final PieceType pieceType,
+                                    final int coordinate,
+                                    final long occupancy) {
+        switch (pieceType) {
+            case PAWN:
+                return pawnAttacks(color, coordinate);
+            case KNIGHT:
+                return knightAttacks(coordinate);
+            case BISHOP:
+                return bishopAttacks(coordinate, occupancy);
+            case ROOK:
+                return rookAttacks(coordinate, occupancy);
+            case QUEEN:
+                return queenAttacks(coordinate, occupancy);
+            default:
+                return kingAttacks(coordinate);
+        }
+    }
+
+    //every tile some piece of the color attacks, whatever stands on it
+    static long attackedTiles(final Color color,
+                              final long[] pieceBitboards,
+                              final long occupancy) {
+        long attacks = 0L;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            long pieces = pieceBitboards[pieceIndex(color, pieceType)];
+            while (pieces != 0) {
+                attacks |= pieceAttacks(color, pieceType, firstTile(pieces), occupancy);
+                pieces &= pieces - 1;
+            }
+        }
+        return attacks;
+    }
+
+    //every piece of the attacking color that attacks the tile, given the pieces in pieceBitboards
+    static long attackersTo(final int coordinate,
+                            final Color attacker,
+                            final long[] pieceBitboards,
+                            final long occupancy) {
+        final int offset = attacker.ordinal() * NUM_PIECE_TYPES;
+        final long queens = pieceBitboards[offset + PieceType.QUEEN.ordinal()];
+        return (pawnAttacks(attacker.opposite(), coordinate) & pieceBitboards[offset + PieceType.PAWN.ordinal()]) |
+               (knightAttacks(coordinate) & pieceBitboards[offset + PieceType.KNIGHT.ordinal()]) |
+               (kingAttacks(coordinate) & pieceBitboards[offset + PieceType.KING.ordinal()]) |
+               (bishopAttacks(coordinate, occupancy) & (pieceBitboards[offset + PieceType.BISHOP.ordinal()] | queens)) |
+               (rookAttacks(coordinate, occupancy) & (pieceBitboards[offset + PieceType.ROOK.ordinal()] | queens));
+    }
+
+    //static exchange evaluation of the capture from -> to: the material the mover comes out ahead once both
+    //sides have recaptured on the tile for as long as it pays them, least valuable attacker first. Attacks are
+    //recomputed against the pieces still on the board after every capture, so a slider lined up behind a
+    //piece that has captured joins in as an x-ray attacker. gains is scratch room of MAX_EXCHANGES the caller owns,
+    //so an exchange allocates nothing
+    static int staticExchange(final int from,
+                              final int to,
+                              final Color mover,
+                              final PieceType moverType,
+                              final int capturedValue,
+                              final long[] pieceBitboards,
+                              final long occupancy,
+                              final int[] gains) {
+        gains[0] = capturedValue;
+        long remaining = occupancy;
+        long attackerTile = tileMask(from);
+        PieceType attackerType = moverType;
+        Color side = mover;
+        int depth = 0;
+        do {
+            depth++;
+            //what the side that just captured has won if the piece it captured with is taken in turn
+            gains[depth] = attackerType.getPieceValue() - gains[depth - 1];
+            if (Math.max(-gains[depth - 1], gains[depth]) < 0) {
+                //neither side can change the outcome by going on
+                break;
+            }
+            remaining &= ~attackerTile;
+            side = side.opposite();
+            final long attackers = attackersTo(to, side, pieceBitboards, remaining) & remaining;
+            attackerTile = 0L;
+            for (final PieceType pieceType : PIECE_TYPES) {
+                final long candidates = attackers & pieceBitboards[pieceIndex(side, pieceType)];
+                if (candidates != 0) {
+                    attackerTile = Long.lowestOneBit(candidates);
+                    attackerType = pieceType;
+                    break;
+                }
+            }
+        } while (attackerTile != 0);
+        //each side stops capturing as soon as going on would lose it material
+        while (--depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    //the enemy pieces attacking the color's king
+    static long checkers(final Color color,
+                         final long[] pieceBitboards,
+                         final long occupancy) {
+        final int kingTile = firstTile(pieceBitboards[pieceIndex(color, PieceType.KING)]);
+        return attackersTo(kingTile, color.opposite(), pieceBitboards, occupancy);
+    }
+
+    //the color's pieces that are all that stands between their king and an enemy slider, which may only
+    //move along the line between the two
+    static long pinnedPieces(final Color color,
+                             final long[] pieceBitboards,
+                             final long occupancy) {
+        final int kingTile = firstTile(pieceBitboards[pieceIndex(color, PieceType.KING)]);
+        final Color enemy = color.opposite();
+        final long queens = pieceBitboards[pieceIndex(enemy, PieceType.QUEEN)];
+        long snipers = (rookAttacks(kingTile, 0L) & (pieceBitboards[pieceIndex(enemy, PieceType.ROOK)] | queens)) |
+                       (bishopAttacks(kingTile, 0L) & (pieceBitboards[pieceIndex(enemy, PieceType.BISHOP)] | queens));
+        long own = 0L;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            own |= pieceBitboards[pieceIndex(color, pieceType)];
+        }
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            final long blockers = BETWEEN[kingTile][firstTile(snipers)] & occupancy;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    //whether the packed move, pseudo legal for the mover, keeps the mover's king out of check. A king move
+    //must not land on an attacked tile, in check another piece must take the checker or block it, and a
+    //pinned piece must stay on its pin line. En passant takes two pieces off one rank at once, so that
+    //alone is checked against the king directly
+    static boolean isLegal(final int move,
+                           final Color mover,
+                           final long[] pieceBitboards,
+                           final long occupancy,
+                           final long checkers,
+                           final long pinned) {
+        final int from = MoveUtils.getCurrentCoordinate(move);
+        final int to = MoveUtils.getDestinationCoordinate(move);
+        final long king = pieceBitboards[pieceIndex(mover, PieceType.KING)];
+        final int kingTile = firstTile(king);
+        if (from == kingTile) {
+            return attackersTo(to, mover.opposite(), pieceBitboards, occupancy & ~king) == 0;
+        }
+        if (MoveUtils.getKind(move) == MoveUtils.EN_PASSANT) {
+            final long captured = tileMask(to - mover.getDirection() * BoardUtils.NUM_TILES_PER_ROW);
+            final long after = (occupancy & ~tileMask(from) & ~captured) | tileMask(to);
+            return (attackersTo(kingTile, mover.opposite(), pieceBitboards, after) & ~captured) == 0;
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        if (checkers != 0 && ((checkers | BETWEEN[kingTile][firstTile(checkers)]) & tileMask(to)) == 0) {
+            return false;
+        }
+        return !isOccupied(pinned, from) || isOccupied(LINE[kingTile][from], to);
+    }
+
+    //whether the packed move attacks the other side's king, worked out by moving its pieces on a copy of the
+    //bitboards instead of making it, which covers discovered checks, castling rooks and promotions alike
+    static boolean givesCheck(final int move,
+                              final Color mover,
+                              final long[] pieceBitboards,
+                              final long occupancy) {
+        final int from = MoveUtils.getCurrentCoordinate(move);
+        final int to = MoveUtils.getDestinationCoordinate(move);
+        final int kind = MoveUtils.getKind(move);
+        final long[] after = pieceBitboards.clone();
+        int moving = pieceIndex(mover, PieceType.PAWN);
+        while (!isOccupied(after[moving], from)) {
+            moving++;
+        }
+        after[moving] &= ~tileMask(from);
+        after[MoveUtils.isPromotion(move) ? pieceIndex(mover, MoveUtils.getPromotionType(move)) : moving] |= tileMask(to);
+        long afterOccupancy = (occupancy & ~tileMask(from)) | tileMask(to);
+        if (kind == MoveUtils.EN_PASSANT) {
+            afterOccupancy &= ~tileMask(to - mover.getDirection() * BoardUtils.NUM_TILES_PER_ROW);
+        } else if (kind == MoveUtils.KING_SIDE_CASTLE) {
+            after[pieceIndex(mover, PieceType.ROOK)] ^= tileMask(to + 1) | tileMask(to - 1);
+            afterOccupancy ^= tileMask(to + 1) | tileMask(to - 1);
+        } else if (kind == MoveUtils.QUEEN_SIDE_CASTLE) {
+            after[pieceIndex(mover, PieceType.ROOK)] ^= tileMask(to - 2) | tileMask(to + 1);
+            afterOccupancy ^= tileMask(to - 2) | tileMask(to + 1);
+        }
+        final long king = after[pieceIndex(mover.opposite(), PieceType.KING)];
+        return king != 0 && attackersTo(firstTile(king), mover, after, afterOccupancy) != 0;
+    }
+
+    private static long[] leaperTable(final int[][] deltas) {
+        final long[] table = new long[BoardUtils.NUM_TILES];
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            table[coordinate] = leaperAttacks(coordinate, deltas);
+        }
+        return table;
+    }
+
+    private static long leaperAttacks(final int coordinate,
+                                      final int[][] deltas) {
+        final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW;
+        final int column = coordinate % BoardUtils.NUM_TILES_PER_ROW;
+        long attacks = 0L;
+        for (final int[] delta : deltas) {
+            final int targetRow = row + delta[0];
+            final int targetColumn = column + delta[1];
+            if (isOnBoard(targetRow, targetColumn)) {
+                attacks |= tileMask(targetRow * BoardUtils.NUM_TILES_PER_ROW + targetColumn);
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(final int row,
+                                     final int column) {
+        return row >= 0 && row < BoardUtils.NUM_TILES_PER_ROW &&
+               column >= 0 && column < BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+}
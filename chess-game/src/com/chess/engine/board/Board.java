@@ -1,50 +1,94 @@
 package com.chess.engine.board;
 
 import com.chess.engine.Color;
-import com.chess.engine.board.Move.MoveFactory;
 import com.chess.engine.pieces.*;
 import com.chess.engine.player.BlackPlayer;
 import com.chess.engine.player.Player;
 import com.chess.engine.player.WhitePlayer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class Board {
 
-    private final Map<Integer, Piece> boardConfig;
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    private final Piece[] boardConfig;
+    private final long[] pieceBitboards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
     private final WhitePlayer whitePlayer;
     private final BlackPlayer blackPlayer;
     private final Player currentPlayer;
     private final Pawn enPassantPawn;
-    private final Move transitionMove;
+    private final GameHistory history;
+    private final int castlingRights;
+    private final long zobristKey;
+    //the tiles each color attacks by color ordinal, computed on first access like the players' moves
+    private volatile long[] attackedTiles;
+    //the pieces checking each color's king and those pinned against it, the same way
+    private volatile long[] checkers;
+    private volatile long[] pinnedPieces;
 
     private static final Board STANDARD_BOARD = createStandardBoardImpl();
 
     private Board(final Builder builder) {
-        this.boardConfig = Collections.unmodifiableMap(builder.boardConfig);
-        this.whitePieces = calculateActivePieces(builder, Color.WHITE);
-        this.blackPieces = calculateActivePieces(builder, Color.BLACK);
+        this.boardConfig = builder.boardConfig.clone();
+        this.pieceBitboards = builder.pieceBitboards.clone();
+        this.whiteOccupancy = calculateOccupancy(this.pieceBitboards, Color.WHITE);
+        this.blackOccupancy = calculateOccupancy(this.pieceBitboards, Color.BLACK);
+        this.whitePieces = calculateActivePieces(this.boardConfig, this.whiteOccupancy);
+        this.blackPieces = calculateActivePieces(this.boardConfig, this.blackOccupancy);
         this.enPassantPawn = builder.enPassantPawn;
-        final Collection<Move> whiteStandardMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardMoves = calculateLegalMoves(this.blackPieces);
-        this.whitePlayer = new WhitePlayer(this, whiteStandardMoves, blackStandardMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteStandardMoves, blackStandardMoves);
+        //the players work out legal moves, check and castles only when they are first asked for them
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayerByColor(this.whitePlayer, this.blackPlayer);
-        this.transitionMove = builder.transitionMove != null ? builder.transitionMove : MoveFactory.getNullMove();
+        this.history = builder.history;
+        this.castlingRights = calculateCastlingRights(this.boardConfig);
+        this.zobristKey = builder.pieceKey ^
+                          ZobristUtils.sideKey(builder.nextMoveMaker) ^
+                          ZobristUtils.castlingKey(this.castlingRights) ^
+                          ZobristUtils.enPassantKey(getEnPassantTile());
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (this.zobristKey ^ (this.zobristKey >>> 32));
+    }
+
+    //two boards are equal when they are the same position, however each of them was reached
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Board)) {
+            return false;
+        }
+        final Board otherBoard = (Board) other;
+        return this.zobristKey == otherBoard.zobristKey &&
+               this.currentPlayer.getColor() == otherBoard.currentPlayer.getColor() &&
+               this.castlingRights == otherBoard.castlingRights &&
+               getEnPassantTile() == otherBoard.getEnPassantTile() &&
+               Arrays.equals(this.pieceBitboards, otherBoard.pieceBitboards);
     }
 
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
         for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
-            final String tileText = prettyPrint(this.boardConfig.get(i));
+            final String tileText = prettyPrint(this.boardConfig[i]);
             builder.append(String.format("%3s", tileText));
             if ((i + 1) % 8 == 0) {
                 builder.append("\n");
@@ -92,15 +136,112 @@ public final class Board {
     }
 
     public Piece getPiece(final int coordinate) {
-        return this.boardConfig.get(coordinate);
+        return this.boardConfig[coordinate];
+    }
+
+    public long getPieceBitboard(final Color color,
+                                 final Piece.PieceType pieceType) {
+        return this.pieceBitboards[BitboardUtils.pieceIndex(color, pieceType)];
+    }
+
+    //the board's own array, only for reading
+    long[] getPieceBitboards() {
+        return this.pieceBitboards;
+    }
+
+    public long getOccupancy(final Color color) {
+        return color.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    public long getOccupancy() {
+        return this.whiteOccupancy | this.blackOccupancy;
+    }
+
+    public long getAttackedTiles(final Color color) {
+        long[] result = this.attackedTiles;
+        if (result == null) {
+            result = new long[Color.values().length];
+            for (final Color attacker : Color.values()) {
+                result[attacker.ordinal()] = BitboardUtils.attackedTiles(attacker, this.pieceBitboards, getOccupancy());
+            }
+            this.attackedTiles = result;
+        }
+        return result[color.ordinal()];
+    }
+
+    //whether a piece of the attacking color attacks the tile, which check and castling both come down to
+    public boolean isSquareAttacked(final Color attacker,
+                                    final int coordinate) {
+        return BitboardUtils.isOccupied(getAttackedTiles(attacker), coordinate);
+    }
+
+    public long getCheckers(final Color color) {
+        long[] result = this.checkers;
+        if (result == null) {
+            result = new long[Color.values().length];
+            for (final Color defender : Color.values()) {
+                result[defender.ordinal()] = BitboardUtils.checkers(defender, this.pieceBitboards, getOccupancy());
+            }
+            this.checkers = result;
+        }
+        return result[color.ordinal()];
+    }
+
+    public long getPinnedPieces(final Color color) {
+        long[] result = this.pinnedPieces;
+        if (result == null) {
+            result = new long[Color.values().length];
+            for (final Color defender : Color.values()) {
+                result[defender.ordinal()] = BitboardUtils.pinnedPieces(defender, this.pieceBitboards, getOccupancy());
+            }
+            this.pinnedPieces = result;
+        }
+        return result[color.ordinal()];
+    }
+
+    //whether one of the moves a piece of this board generates keeps its own king out of check,
+    //decided from checks and pins without building the board the move leads to
+    public boolean isLegal(final Move move) {
+        final Color mover = move.getMovedPiece().getPieceColor();
+        return BitboardUtils.isLegal(MoveUtils.pack(move), mover, this.pieceBitboards, getOccupancy(),
+                getCheckers(mover), getPinnedPieces(mover));
     }
 
     public Pawn getEnPassantPawn() {
         return this.enPassantPawn;
     }
 
-    public Move getTransitionMove() {
-        return this.transitionMove;
+    public GameHistory getHistory() {
+        return this.history;
+    }
+
+    //plies since the last capture or pawn move
+    public int getHalfmoveClock() {
+        return this.history.getHalfmoveClock();
+    }
+
+    //the position came up three times, the last two since the last capture or pawn move
+    public boolean isThreefoldRepetition() {
+        return this.history.repetitions(this.zobristKey) >= 2;
+    }
+
+    //fifty moves each without a capture or a pawn move
+    public boolean isFiftyMoveRule() {
+        return getHalfmoveClock() >= GameHistory.FIFTY_MOVE_RULE_PLIES;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    //the tile a pawn that just jumped passed over, or -1 when the last move was not a pawn jump
+    public int getEnPassantTile() {
+        return this.enPassantPawn != null ? this.enPassantPawn.getPiecePosition() -
+               (this.enPassantPawn.getPieceColor().getDirection() * BoardUtils.NUM_TILES_PER_ROW) : -1;
     }
 
     public static Board createStandardBoard() {
@@ -149,34 +290,107 @@ public final class Board {
         return builder.build();
     }
 
-    private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
-        return pieces.stream().flatMap(piece -> piece.calculateLegalMoves(this).stream())
-                      .collect(Collectors.toList());
+    private static long calculateOccupancy(final long[] pieceBitboards,
+                                          final Color color) {
+        long occupancy = 0L;
+        for (int i = 0; i < BitboardUtils.NUM_PIECE_TYPES; i++) {
+            occupancy |= pieceBitboards[color.ordinal() * BitboardUtils.NUM_PIECE_TYPES + i];
+        }
+        return occupancy;
     }
 
-    private static Collection<Piece> calculateActivePieces(final Builder builder,
-                                                           final Color Color) {
-        return builder.boardConfig.values().stream()
-               .filter(piece -> piece.getPieceColor() == Color)
-               .collect(Collectors.toList());
+    private static int calculateCastlingRights(final Piece[] boardConfig) {
+        int rights = 0;
+        if (isCastleCapable(boardConfig, Color.WHITE, 60, 63)) {
+            rights |= WHITE_KING_SIDE;
+        }
+        if (isCastleCapable(boardConfig, Color.WHITE, 60, 56)) {
+            rights |= WHITE_QUEEN_SIDE;
+        }
+        if (isCastleCapable(boardConfig, Color.BLACK, 4, 7)) {
+            rights |= BLACK_KING_SIDE;
+        }
+        if (isCastleCapable(boardConfig, Color.BLACK, 4, 0)) {
+            rights |= BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    //the king and the rook are both unmoved, the same conditions the players check before offering a castle
+    private static boolean isCastleCapable(final Piece[] boardConfig,
+                                           final Color color,
+                                           final int kingTile,
+                                           final int rookTile) {
+        final Piece king = boardConfig[kingTile];
+        final Piece rook = boardConfig[rookTile];
+        return king != null && king.getPieceType() == Piece.PieceType.KING && king.getPieceColor() == color &&
+               king.isFirstMove() && !((King) king).isCastled() &&
+               (((King) king).isKingSideCastleCapable() || ((King) king).isQueenSideCastleCapable()) &&
+               rook != null && rook.getPieceType() == Piece.PieceType.ROOK && rook.getPieceColor() == color &&
+               rook.isFirstMove();
+    }
+
+    private static Collection<Piece> calculateActivePieces(final Piece[] boardConfig,
+                                                           final long occupancy) {
+        final List<Piece> activePieces = new ArrayList<>(Long.bitCount(occupancy));
+        long remaining = occupancy;
+        while (remaining != 0) {
+            activePieces.add(boardConfig[BitboardUtils.firstTile(remaining)]);
+            remaining &= remaining - 1;
+        }
+        return Collections.unmodifiableList(activePieces);
     }
 
     public static class Builder {
 
-        Map<Integer, Piece> boardConfig;
+        final Piece[] boardConfig;
+        final long[] pieceBitboards;
         Color nextMoveMaker;
         Pawn enPassantPawn;
-        Move transitionMove;
+        GameHistory history;
+        long pieceKey;
 
         public Builder() {
-            this.boardConfig = new HashMap<>(32, 1.0f);
+            this.boardConfig = new Piece[BoardUtils.NUM_TILES];
+            this.pieceBitboards = new long[BitboardUtils.NUM_PIECE_BITBOARDS];
+            this.history = GameHistory.EMPTY;
+            this.pieceKey = 0L;
+        }
+
+        //starts from the pieces of an existing board, so a move only has to touch the tiles it changes
+        Builder(final Board board) {
+            this.boardConfig = board.boardConfig.clone();
+            this.pieceBitboards = board.pieceBitboards.clone();
+            this.history = board.history;
+            this.pieceKey = board.zobristKey ^
+                            ZobristUtils.sideKey(board.currentPlayer.getColor()) ^
+                            ZobristUtils.castlingKey(board.castlingRights) ^
+                            ZobristUtils.enPassantKey(board.getEnPassantTile());
         }
 
         public Builder setPiece(final Piece piece) {
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            final int coordinate = piece.getPiecePosition();
+            clearTile(coordinate);
+            this.boardConfig[coordinate] = piece;
+            this.pieceBitboards[BitboardUtils.pieceIndex(piece)] |= BitboardUtils.tileMask(coordinate);
+            this.pieceKey ^= ZobristUtils.pieceKey(BitboardUtils.pieceIndex(piece), coordinate);
+            return this;
+        }
+
+        public Builder removePiece(final Piece piece) {
+            clearTile(piece.getPiecePosition());
             return this;
         }
 
+        private void clearTile(final int coordinate) {
+            final Piece occupant = this.boardConfig[coordinate];
+            if (occupant != null) {
+                this.pieceBitboards[BitboardUtils.pieceIndex(occupant)] &= ~BitboardUtils.tileMask(coordinate);
+                this.pieceKey ^= ZobristUtils.pieceKey(BitboardUtils.pieceIndex(occupant), coordinate);
+                this.boardConfig[coordinate] = null;
+            }
+        }
+
         public Builder setMoveMaker(final Color nextMoveMaker) {
             this.nextMoveMaker = nextMoveMaker;
             return this;
@@ -187,8 +401,11 @@ public final class Board {
             return this;
         }
 
+        //adds the move that leads to the board to the history of the board it is made on, keeping the move
+        //packed so the new board does not hold on to the old one
         public Builder setMoveTransition(final Move transitionMove) {
-            this.transitionMove = transitionMove;
+            final Board board = transitionMove.getBoard();
+            this.history = board.history.record(board.zobristKey, MoveUtils.pack(transitionMove));
             return this;
         }
 
@@ -1,60 +1,59 @@
 package com.chess.engine.board;
 
+import com.chess.engine.Color;
 import com.chess.engine.pieces.King;
 import com.chess.engine.pieces.Piece;
 
 import java.util.*;
 
-import static com.chess.engine.board.Move.MoveFactory;
-
 public enum  BoardUtils {
 
     INSTANCE;
 
-    public final List<Boolean> FIRST_COLUMN = initColumn(0);
-    public final List<Boolean> SECOND_COLUMN = initColumn(1);
-    public final List<Boolean> THIRD_COLUMN = initColumn(2);
-    public final List<Boolean> FOURTH_COLUMN = initColumn(3);
-    public final List<Boolean> FIFTH_COLUMN = initColumn(4);
-    public final List<Boolean> SIXTH_COLUMN = initColumn(5);
-    public final List<Boolean> SEVENTH_COLUMN = initColumn(6);
-    public final List<Boolean> EIGHTH_COLUMN = initColumn(7);
-    public final List<Boolean> FIRST_ROW = initRow(0);
-    public final List<Boolean> SECOND_ROW = initRow(8);
-    public final List<Boolean> THIRD_ROW = initRow(16);
-    public final List<Boolean> FOURTH_ROW = initRow(24);
-    public final List<Boolean> FIFTH_ROW = initRow(32);
-    public final List<Boolean> SIXTH_ROW = initRow(40);
-    public final List<Boolean> SEVENTH_ROW = initRow(48);
-    public final List<Boolean> EIGHTH_ROW = initRow(56);
     public final List<String> ALGEBRAIC_NOTATION = initializeAlgebraicNotation();
     public final Map<String, Integer> POSITION_TO_COORDINATE = initializePositionToCoordinateMap();
     public static final int START_TILE_INDEX = 0;
     public static final int NUM_TILES_PER_ROW = 8;
     public static final int NUM_TILES = 64;
+    //scratch room for static exchange evaluation of a Move, one per thread as Boards are shared between them
+    private static final ThreadLocal<int[]> EXCHANGE_GAINS =
+            ThreadLocal.withInitial(() -> new int[BitboardUtils.MAX_EXCHANGES]);
+
+    //the tiles of each row and column as bitboards. Rows count down the board from the top, so the first
+    //row is the eighth rank, and columns count across from the a file
+    public static final long FIRST_COLUMN = columnMask(0);
+    public static final long SECOND_COLUMN = columnMask(1);
+    public static final long THIRD_COLUMN = columnMask(2);
+    public static final long FOURTH_COLUMN = columnMask(3);
+    public static final long FIFTH_COLUMN = columnMask(4);
+    public static final long SIXTH_COLUMN = columnMask(5);
+    public static final long SEVENTH_COLUMN = columnMask(6);
+    public static final long EIGHTH_COLUMN = columnMask(7);
+    public static final long FIRST_ROW = rowMask(0);
+    public static final long SECOND_ROW = rowMask(1);
+    public static final long THIRD_ROW = rowMask(2);
+    public static final long FOURTH_ROW = rowMask(3);
+    public static final long FIFTH_ROW = rowMask(4);
+    public static final long SIXTH_ROW = rowMask(5);
+    public static final long SEVENTH_ROW = rowMask(6);
+    public static final long EIGHTH_ROW = rowMask(7);
+
+    private static long columnMask(final int column) {
+        return 0x0101010101010101L << column;
+    }
 
-    private static List<Boolean> initColumn(int columnNumber) {
-        final Boolean[] column = new Boolean[NUM_TILES];
-        for(int i = 0; i < column.length; i++) {
-            column[i] = false;
-        }
-        do {
-            column[columnNumber] = true;
-            columnNumber += NUM_TILES_PER_ROW;
-        } while(columnNumber < NUM_TILES);
-        return Collections.unmodifiableList(Arrays.asList((column)));
+    private static long rowMask(final int row) {
+        return 0xFFL << (row * NUM_TILES_PER_ROW);
     }
 
-    private static List<Boolean> initRow(int rowNumber) {
-        final Boolean[] row = new Boolean[NUM_TILES];
-        for(int i = 0; i < row.length; i++) {
-            row[i] = false;
-        }
-        do {
-            row[rowNumber] = true;
-            rowNumber++;
-        } while(rowNumber % NUM_TILES_PER_ROW != 0);
-        return Collections.unmodifiableList(Arrays.asList(row));
+    //the row of the tile, 0 for the top row
+    public static int getRow(final int coordinate) {
+        return coordinate / NUM_TILES_PER_ROW;
+    }
+
+    //the column of the tile, 0 for the a file
+    public static int getColumn(final int coordinate) {
+        return coordinate % NUM_TILES_PER_ROW;
     }
 
     private Map<String, Integer> initializePositionToCoordinateMap() {
@@ -93,10 +92,11 @@ public enum  BoardUtils {
         return board.whitePlayer().isInCheck() || board.blackPlayer().isInCheck();
     }
 
-    public static boolean kingThreat(final Move move) {
+    //whether the move checks the opponent, found from attacks without making the move
+    public static boolean givesCheck(final Move move) {
         final Board board = move.getBoard();
-        final MoveTransition transition = board.currentPlayer().makeMove(move);
-        return transition.getToBoard().currentPlayer().isInCheck();
+        return BitboardUtils.givesCheck(MoveUtils.pack(move), move.getMovedPiece().getPieceColor(),
+                board.getPieceBitboards(), board.getOccupancy());
     }
 
     public static boolean isKingPawnTrap(final Board board,
@@ -117,20 +117,67 @@ public enum  BoardUtils {
         return Piece.PieceType.KING.getPieceValue() - movingPiece.getPieceValue();
     }
 
-    public static List<Move> lastNMoves(final Board board, int N) {
-        final List<Move> moveHistory = new ArrayList<>();
-        Move currentMove = board.getTransitionMove();
-        int i = 0;
-        while(currentMove != MoveFactory.getNullMove() && i < N) {
-            moveHistory.add(currentMove);
-            currentMove = currentMove.getBoard().getTransitionMove();
-            i++;
+    public static int mvvlva(final int move) {
+        final Piece.PieceType movingPiece = MoveUtils.getMovedPieceType(move);
+        if(MoveUtils.isCapture(move)) {
+            final Piece.PieceType attackedPiece = MoveUtils.getCapturedPieceType(move);
+            return (attackedPiece.getPieceValue() - movingPiece.getPieceValue() +  Piece.PieceType.KING.getPieceValue()) * 100;
+        }
+        return Piece.PieceType.KING.getPieceValue() - movingPiece.getPieceValue();
+    }
+
+    //the material the move wins once every recapture worth making on its destination has been made,
+    //0 for a move that captures nothing and cannot be taken back with profit
+    public static int see(final Move move) {
+        final Board board = move.getBoard();
+        final Piece movedPiece = move.getMovedPiece();
+        long occupancy = board.getOccupancy();
+        int capturedValue = 0;
+        if (move.isAttack()) {
+            //an en passant capture takes a pawn off a tile other than the destination
+            occupancy &= ~BitboardUtils.tileMask(move.getAttackedPiece().getPiecePosition());
+            capturedValue = move.getAttackedPiece().getPieceValue();
+        }
+        return BitboardUtils.staticExchange(move.getCurrentCoordinate(), move.getDestinationCoordinate(),
+                movedPiece.getPieceColor(), movedPiece.getPieceType(), capturedValue, board.getPieceBitboards(), occupancy,
+                EXCHANGE_GAINS.get());
+    }
+
+    public static int see(final MutableBoard board,
+                          final int move) {
+        final int from = MoveUtils.getCurrentCoordinate(move);
+        final int to = MoveUtils.getDestinationCoordinate(move);
+        final Color mover = board.getPieceColor(from);
+        long occupancy = board.getOccupancy();
+        int capturedValue = 0;
+        if (MoveUtils.getKind(move) == MoveUtils.EN_PASSANT) {
+            occupancy &= ~BitboardUtils.tileMask(to - mover.getDirection() * NUM_TILES_PER_ROW);
+            capturedValue = Piece.PieceType.PAWN.getPieceValue();
+        } else if (!board.isEmpty(to)) {
+            capturedValue = board.getPieceType(to).getPieceValue();
         }
-        return Collections.unmodifiableList(moveHistory);
+        return BitboardUtils.staticExchange(from, to, mover, board.getPieceType(from),
+                capturedValue, board.getPieceBitboards(), occupancy, board.getExchangeGains());
+    }
+
+    //the last N moves that led to the board packed, latest first. A board only keeps GameHistory.CAPACITY of them
+    public static int[] lastNMoves(final Board board, final int N) {
+        final GameHistory history = board.getHistory();
+        final int[] moveHistory = new int[Math.min(N, history.size())];
+        for(int i = 0; i < moveHistory.length; i++) {
+            moveHistory[i] = history.getMove(i + 1);
+        }
+        return moveHistory;
     }
 
     public static boolean isEndGame(final Board board) {
         return board.currentPlayer().isInCheckMate() ||
-               board.currentPlayer().isInStaleMate();
+               isDraw(board);
+    }
+
+    public static boolean isDraw(final Board board) {
+        return board.currentPlayer().isInStaleMate() ||
+               board.isThreefoldRepetition() ||
+               board.isFiftyMoveRule();
     }
 }
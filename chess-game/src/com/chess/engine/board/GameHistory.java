@@ -0,0 +1,80 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+// the moves that led to a board, packed, with the Zobrist key of the position each was made from. Only the
+// latest CAPACITY plies are kept, so a board never holds on to the boards before it and a long game costs
+// no more memory than a short one. A history is never changed, recording a move makes a new one
+public final class GameHistory {
+
+    //fifty moves by each side
+    public static final int FIFTY_MOVE_RULE_PLIES = 100;
+    //a position further back than the fifty move rule can not come up again in a game still going
+    public static final int CAPACITY = FIFTY_MOVE_RULE_PLIES;
+
+    static final GameHistory EMPTY = new GameHistory(new long[0], new int[0], 0);
+
+    //oldest first
+    private final long[] keys;
+    private final int[] moves;
+    //plies since the last capture or pawn move
+    private final int halfmoveClock;
+
+    private GameHistory(final long[] keys,
+                        final int[] moves,
+                        final int halfmoveClock) {
+        this.keys = keys;
+        this.moves = moves;
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    //this history with one more move, made from the position with the given key, dropping the oldest when full
+    GameHistory record(final long key,
+                       final int move) {
+        final int kept = Math.min(this.moves.length, CAPACITY - 1);
+        final long[] keys = new long[kept + 1];
+        final int[] moves = new int[kept + 1];
+        System.arraycopy(this.keys, this.keys.length - kept, keys, 0, kept);
+        System.arraycopy(this.moves, this.moves.length - kept, moves, 0, kept);
+        keys[kept] = key;
+        moves[kept] = move;
+        return new GameHistory(keys, moves, resetsHalfmoveClock(move) ? 0 : this.halfmoveClock + 1);
+    }
+
+    //captures and pawn moves can not be undone, so no position before one of them can come up again
+    public static boolean resetsHalfmoveClock(final int move) {
+        return MoveUtils.isCapture(move) || MoveUtils.getMovedPieceType(move) == PieceType.PAWN;
+    }
+
+    public int size() {
+        return this.moves.length;
+    }
+
+    //the move made the given number of plies back, 1 being the last one
+    public int getMove(final int pliesAgo) {
+        return this.moves[this.moves.length - pliesAgo];
+    }
+
+    //the key of the position that move was made from
+    public long getKey(final int pliesAgo) {
+        return this.keys[this.keys.length - pliesAgo];
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    //how often the position reached by the last move, which has the given key, came up before since
+    //the last capture or pawn move
+    public int repetitions(final long key) {
+        final int window = Math.min(this.halfmoveClock, this.moves.length);
+        int repetitions = 0;
+        for (int pliesAgo = 2; pliesAgo <= window; pliesAgo += 2) {
+            if (getKey(pliesAgo) == key) {
+                repetitions++;
+            }
+        }
+        return repetitions;
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.chess.engine.board;
+
+// rook and bishop attacks by table lookup. The pieces that can block a slider on a tile are the tiles its rays
+// cross short of the edge (the relevant mask), and the attacks only depend on which of those are occupied.
+// Multiplying the occupied part of the mask by the tile's magic number gathers those bits into the top of the
+// product, whose top bits then index a table holding the attacks for every such occupancy. The magics were
+// found by trying random sparse numbers until one indexed every occupancy of the mask without two that
+// attack differently sharing an entry. The tables are filled once, when the class is loaded
+enum MagicBitboards {
+
+    INSTANCE;
+
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x1180081040008020L, 0x014000D000200048L, 0x0280100020008008L, 0x0080100080080005L,
+            0x0480020400080080L, 0x0A00020081080410L, 0x2600040200084081L, 0x020004012180410EL,
+            0x0000800080400020L, 0x0001002040010090L, 0x801A004200108024L, 0x0822800802801000L,
+            0x0002800800810400L, 0x1000800400020080L, 0x0109000401002200L, 0x1981000100004082L,
+            0x8040018000402080L, 0xA00E020041082380L, 0x40A0048010008020L, 0x0210010008210010L,
+            0x8088818004001802L, 0x2A24008080020004L, 0x0000040001100802L, 0x1000020008411084L,
+            0x4000400180087080L, 0x2540004540201002L, 0x0808408200120021L, 0x0000100080080085L,
+            0x0008010100080410L, 0x0023040080800200L, 0x0C01004100440200L, 0x2800004200210084L,
+            0x3004204014800081L, 0x001001400140200AL, 0x8210200101001040L, 0x4424490025001000L,
+            0x0008000400800880L, 0x2C00800200800400L, 0x8090081004000102L, 0x00080C02820020C5L,
+            0x0000800040008020L, 0x8080820021020040L, 0x0020802200120040L, 0x0202002008420010L,
+            0x0004008040080800L, 0x0000020004008080L, 0x1200504102040048L, 0x4C01000040810002L,
+            0x0580002000400040L, 0x2015802000400C80L, 0x8080461082022200L, 0x0002201005000900L,
+            0xC900080100900500L, 0x0002002400807280L, 0x0004021008410400L, 0x0810010080540200L,
+            0x2000208000110041L, 0x300B024002B0A081L, 0x0000090020004293L, 0x0008200408100101L,
+            0x0122000420081002L, 0x0011000400080201L, 0x018008A110120804L, 0x0900040221124082L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x2002102208004480L, 0x0808012124010C01L, 0x0008025042010045L, 0x2202208601038101L,
+            0x4044050405040100L, 0x0102080208020100L, 0x0006210920100020L, 0x0100808048024000L,
+            0x00800A2084040040L, 0x000AA00101410104L, 0x1108082E240CA100L, 0x0010082080202244L,
+            0x1002084840020000L, 0x000842180404001AL, 0x4043008210022000L, 0x100003040A014468L,
+            0x000500084858082CL, 0x0028040310041080L, 0x8008000400240014L, 0x2094002241020001L,
+            0x0182001012100000L, 0x4002030908010C00L, 0x1129180041082024L, 0x000284204410A820L,
+            0x483044814A200421L, 0x00082000081A2484L, 0x800E0442020C0400L, 0x0008080004220060L,
+            0x2801001001004002L, 0x4401010002100080L, 0x03050120C6441000L, 0x01010100014404A1L,
+            0x8101500810D02004L, 0x2002082003048100L, 0x0402010A41040801L, 0x0022020080180080L,
+            0x00440C0400001100L, 0x0000851302060088L, 0x010810C100308800L, 0x0001240020108210L,
+            0x00AC412050020808L, 0xA000820120041100L, 0x0811094402171000L, 0x0010054022089021L,
+            0x6011240810140201L, 0x0010041004101020L, 0x0020084102468500L, 0x00011C0082000090L,
+            0x1254881490040300L, 0x8084804402600C20L, 0x6002010090904000L, 0x0000021084044040L,
+            0x004000445044020AL, 0x0401100250010028L, 0x0020204411006020L, 0x0862447802104005L,
+            0x628282480090080AL, 0x1000008400880400L, 0x0010000D04210440L, 0x0004300480460800L,
+            0x0884430010021210L, 0x1040006072900240L, 0x0000210204080C80L, 0x0108014102020A00L
+    };
+
+    private static final long[] ROOK_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final long[] BISHOP_MASKS = new long[BoardUtils.NUM_TILES];
+    private static final int[] ROOK_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final int[] BISHOP_SHIFTS = new int[BoardUtils.NUM_TILES];
+    private static final long[][] ROOK_ATTACKS = new long[BoardUtils.NUM_TILES][];
+    private static final long[][] BISHOP_ATTACKS = new long[BoardUtils.NUM_TILES][];
+
+    static {
+        for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+            initTables(coordinate, ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initTables(coordinate, BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+    }
+
+    static long rookAttacks(final int coordinate,
+                            final long occupancy) {
+        return ROOK_ATTACKS[coordinate][(int) (((occupancy & ROOK_MASKS[coordinate]) * ROOK_MAGICS[coordinate]) >>> ROOK_SHIFTS[coordinate])];
+    }
+
+    static long bishopAttacks(final int coordinate,
+                              final long occupancy) {
+        return BISHOP_ATTACKS[coordinate][(int) (((occupancy & BISHOP_MASKS[coordinate]) * BISHOP_MAGICS[coordinate]) >>> BISHOP_SHIFTS[coordinate])];
+    }
+
+    private static void initTables(final int coordinate,
+                                   final int[][] directions,
+                                   final long[] magics,
+                                   final long[] masks,
+                                   final int[] shifts,
+                                   final long[][] attacks) {
+        final long mask = relevantMask(coordinate, directions);
+        masks[coordinate] = mask;
+        shifts[coordinate] = Long.SIZE - Long.bitCount(mask);
+        attacks[coordinate] = new long[1 << Long.bitCount(mask)];
+        //every subset of the mask, counting up through the carry trick
+        long occupancy = 0L;
+        do {
+            final int index = (int) ((occupancy * magics[coordinate]) >>> shifts[coordinate]);
+            attacks[coordinate][index] = slidingAttacks(coordinate, occupancy, directions);
+            occupancy = (occupancy - mask) & mask;
+        } while (occupancy != 0);
+    }
+
+    //the tiles along the rays that could hold a blocker, the last tile of each ray never matters
+    private static long relevantMask(final int coordinate,
+                                     final int[][] directions) {
+        final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW;
+        final int column = coordinate % BoardUtils.NUM_TILES_PER_ROW;
+        long mask = 0L;
+        for (final int[] direction : directions) {
+            int targetRow = row + direction[0];
+            int targetColumn = column + direction[1];
+            while (isOnBoard(targetRow + direction[0], targetColumn + direction[1])) {
+                mask |= 1L << (targetRow * BoardUtils.NUM_TILES_PER_ROW + targetColumn);
+                targetRow += direction[0];
+                targetColumn += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slidingAttacks(final int coordinate,
+                                       final long occupancy,
+                                       final int[][] directions) {
+        final int row = coordinate / BoardUtils.NUM_TILES_PER_ROW;
+        final int column = coordinate % BoardUtils.NUM_TILES_PER_ROW;
+        long attacks = 0L;
+        for (final int[] direction : directions) {
+            int targetRow = row + direction[0];
+            int targetColumn = column + direction[1];
+            while (isOnBoard(targetRow, targetColumn)) {
+                final long target = 1L << (targetRow * BoardUtils.NUM_TILES_PER_ROW + targetColumn);
+                attacks |= target;
+                if ((occupancy & target) != 0) {
+                    break;
+                }
+                targetRow += direction[0];
+                targetColumn += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(final int row,
+                                     final int column) {
+        return row >= 0 && row < BoardUtils.NUM_TILES_PER_ROW &&
+               column >= 0 && column < BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+}
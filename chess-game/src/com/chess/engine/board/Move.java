@@ -82,9 +82,8 @@ public abstract class Move {
     }
 
     public Board execute() {
-        final Board.Builder builder = new Builder();
-        this.board.currentPlayer().getActivePieces().stream().filter(piece -> !this.movedPiece.equals(piece)).forEach(builder::setPiece);
-        this.board.currentPlayer().getOpponent().getActivePieces().forEach(builder::setPiece);
+        final Board.Builder builder = new Builder(this.board);
+        builder.removePiece(this.movedPiece);
         builder.setPiece(this.movedPiece.movePiece(this));
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
         builder.setMoveTransition(this);
@@ -92,8 +91,7 @@ public abstract class Move {
     }
 
     public Board undo() {
-        final Board.Builder builder = new Builder();
-        this.board.getAllPieces().forEach(builder::setPiece);
+        final Board.Builder builder = new Builder(this.board);
         builder.setMoveMaker(this.board.currentPlayer().getColor());
         return builder.build();
     }
@@ -160,12 +158,10 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board pawnMovedBoard = this.decoratedMove.execute();
-            final Board.Builder builder = new Builder();
-            pawnMovedBoard.currentPlayer().getActivePieces().stream().filter(piece -> !this.promotedPawn.equals(piece)).forEach(builder::setPiece);
-            pawnMovedBoard.currentPlayer().getOpponent().getActivePieces().forEach(builder::setPiece);
+            final Board.Builder builder = new Builder(this.board);
+            builder.removePiece(this.promotedPawn);
             builder.setPiece(this.promotionPiece.movePiece(this));
-            builder.setMoveMaker(pawnMovedBoard.currentPlayer().getColor());
+            builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
             builder.setMoveTransition(this);
             return builder.build();
         }
@@ -294,9 +290,9 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Builder();
-            this.board.currentPlayer().getActivePieces().stream().filter(piece -> !this.movedPiece.equals(piece)).forEach(builder::setPiece);
-            this.board.currentPlayer().getOpponent().getActivePieces().stream().filter(piece -> !piece.equals(this.getAttackedPiece())).forEach(builder::setPiece);
+            final Board.Builder builder = new Builder(this.board);
+            builder.removePiece(this.movedPiece);
+            builder.removePiece(this.getAttackedPiece());
             builder.setPiece(this.movedPiece.movePiece(this));
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
             builder.setMoveTransition(this);
@@ -305,8 +301,7 @@ public abstract class Move {
 
         @Override
         public Board undo() {
-            final Board.Builder builder = new Builder();
-            this.board.getAllPieces().forEach(builder::setPiece);
+            final Board.Builder builder = new Builder(this.board);
             builder.setEnPassantPawn((Pawn)this.getAttackedPiece());
             builder.setMoveMaker(this.board.currentPlayer().getColor());
             return builder.build();
@@ -330,9 +325,8 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Builder();
-            this.board.currentPlayer().getActivePieces().stream().filter(piece -> !this.movedPiece.equals(piece)).forEach(builder::setPiece);
-            this.board.currentPlayer().getOpponent().getActivePieces().forEach(builder::setPiece);
+            final Board.Builder builder = new Builder(this.board);
+            builder.removePiece(this.movedPiece);
             final Pawn movedPawn = (Pawn)this.movedPiece.movePiece(this);
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
@@ -378,12 +372,9 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Builder();
-            for (final Piece piece : this.board.getAllPieces()) {
-                if (!this.movedPiece.equals(piece) && !this.castleRook.equals(piece)) {
-                    builder.setPiece(piece);
-                }
-            }
+            final Board.Builder builder = new Builder(this.board);
+            builder.removePiece(this.movedPiece);
+            builder.removePiece(this.castleRook);
             builder.setPiece(this.movedPiece.movePiece(this));
             //calling movePiece here doesn't work, we need to explicitly create a new Rook
             builder.setPiece(new Rook(this.castleRook.getPieceColor(), this.castleRookDestination, false));
@@ -1,19 +1,161 @@
 package com.chess.engine.board;
 
+import com.chess.engine.pieces.Piece.PieceType;
+
 import static com.chess.engine.board.Move.*;
 
 public enum MoveUtils {
 
     INSTANCE;
 
+    // search moves are packed into an int so the search path never has to allocate a Move:
+    // bits 0-5 hold the source tile, bits 6-11 the destination tile, bits 12-14 the move kind,
+    // bits 15-17 the ordinal of the promotion piece type (0, a pawn, meaning no promotion),
+    // bits 18-21 the piece index of the moving piece and bits 22-25 one more than the piece
+    // index of the captured piece (0 meaning no capture). Piece indices are BitboardUtils.pieceIndex
+    public static final int NULL_MOVE = 0;
+
+    public static final int NORMAL = 0;
+    public static final int PAWN_JUMP = 1;
+    public static final int KING_SIDE_CASTLE = 2;
+    public static final int QUEEN_SIDE_CASTLE = 3;
+    public static final int EN_PASSANT = 4;
+
+    private static final int TILE_MASK = 0x3F;
+    private static final int KIND_SHIFT = 12;
+    private static final int KIND_MASK = 0x7;
+    private static final int PROMOTION_SHIFT = 15;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int MOVED_PIECE_SHIFT = 18;
+    private static final int CAPTURED_PIECE_SHIFT = 22;
+    private static final int PIECE_MASK = 0xF;
+    //no piece, as a piece index
+    public static final int NO_PIECE = -1;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    //a factor of 5 for the move and for each move kept in the history of its board that is a capture
     public static int exchangeScore(final Move move) {
         if(move == MoveFactory.getNullMove()) {
             return 1;
         }
-        return move.isAttack() ?
-                5 * exchangeScore(move.getBoard().getTransitionMove()) :
-                exchangeScore(move.getBoard().getTransitionMove());
+        final GameHistory history = move.getBoard().getHistory();
+        int score = move.isAttack() ? 5 : 1;
+        for(int i = 1; i <= history.size(); i++) {
+            if(isCapture(history.getMove(i))) {
+                score *= 5;
+            }
+        }
+        return score;
+    }
+
+    public static int createMove(final int currentCoordinate,
+                                 final int destinationCoordinate,
+                                 final int kind) {
+        return currentCoordinate | (destinationCoordinate << 6) | (kind << KIND_SHIFT);
+    }
+
+    public static int createPromotion(final int currentCoordinate,
+                                      final int destinationCoordinate,
+                                      final PieceType promotionType) {
+        return createMove(currentCoordinate, destinationCoordinate, NORMAL) | (promotionType.ordinal() << PROMOTION_SHIFT);
+    }
+
+    //the move with the piece it moves and the piece it captures, or NO_PIECE, filled in
+    public static int withPieces(final int move,
+                                 final int movedPiece,
+                                 final int capturedPiece) {
+        return move | (movedPiece << MOVED_PIECE_SHIFT) | ((capturedPiece + 1) << CAPTURED_PIECE_SHIFT);
+    }
 
+    public static int getCurrentCoordinate(final int move) {
+        return move & TILE_MASK;
+    }
+
+    public static int getDestinationCoordinate(final int move) {
+        return (move >>> 6) & TILE_MASK;
+    }
+
+    public static int getKind(final int move) {
+        return (move >>> KIND_SHIFT) & KIND_MASK;
+    }
+
+    public static int getMovedPiece(final int move) {
+        return (move >>> MOVED_PIECE_SHIFT) & PIECE_MASK;
+    }
+
+    public static int getCapturedPiece(final int move) {
+        return ((move >>> CAPTURED_PIECE_SHIFT) & PIECE_MASK) - 1;
+    }
+
+    public static PieceType getMovedPieceType(final int move) {
+        return PIECE_TYPES[getMovedPiece(move) % BitboardUtils.NUM_PIECE_TYPES];
+    }
+
+    //only for a capture
+    public static PieceType getCapturedPieceType(final int move) {
+        return PIECE_TYPES[getCapturedPiece(move) % BitboardUtils.NUM_PIECE_TYPES];
+    }
+
+    public static boolean isCapture(final int move) {
+        return getCapturedPiece(move) != NO_PIECE;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    public static PieceType getPromotionType(final int move) {
+        return PIECE_TYPES[(move >>> PROMOTION_SHIFT) & PROMOTION_MASK];
+    }
+
+    public static boolean isCastlingMove(final int move) {
+        final int kind = getKind(move);
+        return kind == KING_SIDE_CASTLE || kind == QUEEN_SIDE_CASTLE;
+    }
+
+    public static int pack(final Move move) {
+        if(move == MoveFactory.getNullMove()) {
+            return NULL_MOVE;
+        }
+        return withPieces(packTiles(move), BitboardUtils.pieceIndex(move.getMovedPiece()),
+                          move.isAttack() ? BitboardUtils.pieceIndex(move.getAttackedPiece()) : NO_PIECE);
+    }
+
+    //the Move of the board's side to move that packs to the given int, the null move when there is none
+    public static Move unpack(final Board board,
+                              final int move) {
+        for (final Move candidate : board.currentPlayer().getLegalMoves()) {
+            if (pack(candidate) == move) {
+                return candidate;
+            }
+        }
+        return MoveFactory.getNullMove();
+    }
+
+    private static int packTiles(final Move move) {
+        final int current = move.getCurrentCoordinate();
+        final int destination = move.getDestinationCoordinate();
+        if(move instanceof PawnPromotion) {
+            return createPromotion(current, destination, ((PawnPromotion) move).promotionPiece.getPieceType());
+        } else if(move instanceof PawnJump) {
+            return createMove(current, destination, PAWN_JUMP);
+        } else if(move instanceof KingSideCastleMove) {
+            return createMove(current, destination, KING_SIDE_CASTLE);
+        } else if(move instanceof QueenSideCastleMove) {
+            return createMove(current, destination, QUEEN_SIDE_CASTLE);
+        } else if(move instanceof PawnEnPassantAttack) {
+            return createMove(current, destination, EN_PASSANT);
+        }
+        return createMove(current, destination, NORMAL);
+    }
+
+    public static String toString(final int move) {
+        if(move == NULL_MOVE) {
+            return "Null Move";
+        }
+        final String text = BoardUtils.INSTANCE.getPositionAtCoordinate(getCurrentCoordinate(move)) + "-" +
+                            BoardUtils.INSTANCE.getPositionAtCoordinate(getDestinationCoordinate(move));
+        return isPromotion(move) ? text + "=" + getPromotionType(move) : text;
     }
 
-}
\ No newline at end of file
+}
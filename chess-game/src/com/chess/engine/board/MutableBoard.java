@@ -0,0 +1,465 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.MoveUtils.*;
+
+// search side position that is changed in place by makeMove and restored by unmakeMove,
+// so a search never has to build a new Board per node. Board stays the public snapshot type,
+// a MutableBoard is created from one at the root of a search and owned by a single thread
+public final class MutableBoard {
+
+    public static final int EMPTY = -1;
+
+    //more than any position has
+    public static final int MAX_MOVES = 256;
+    private static final int INITIAL_HISTORY = 128;
+    private static final int[] CASTLING_MASKS = initCastlingMasks();
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private final long[] pieceBitboards;
+    private final long[] occupancy;
+    private final int[] mailbox;
+    private final int[] moveBuffer;
+    private final int[] legalityBuffer;
+    private final int[] exchangeGains;
+    //the game before the board this one was built from
+    private final GameHistory gameHistory;
+    private Color sideToMove;
+    private int castlingRights;
+    private int enPassantTile;
+    private int castledFlags;
+    private long zobristKey;
+    //plies since the last capture or pawn move
+    private int halfmoveClock;
+
+    private int historySize;
+    private int[] historyMoves;
+    private int[] historyCaptured;
+    private int[] historyCastlingRights;
+    private int[] historyEnPassantTile;
+    private int[] historyCastledFlags;
+    private long[] historyZobristKeys;
+    private int[] historyHalfmoveClocks;
+
+    public MutableBoard(final Board board) {
+        this.pieceBitboards = new long[BitboardUtils.NUM_PIECE_BITBOARDS];
+        this.occupancy = new long[2];
+        this.mailbox = new int[BoardUtils.NUM_TILES];
+        this.moveBuffer = new int[2 * MAX_MOVES];
+        this.legalityBuffer = new int[MAX_MOVES];
+        this.exchangeGains = new int[BitboardUtils.MAX_EXCHANGES];
+        Arrays.fill(this.mailbox, EMPTY);
+        for (final Piece piece : board.getAllPieces()) {
+            putPiece(BitboardUtils.pieceIndex(piece), piece.getPiecePosition());
+        }
+        this.sideToMove = board.currentPlayer().getColor();
+        this.castlingRights = board.getCastlingRights();
+        this.enPassantTile = board.getEnPassantTile();
+        this.zobristKey = board.getZobristKey();
+        this.castledFlags = (board.whitePlayer().isCastled() ? 1 : 0) | (board.blackPlayer().isCastled() ? 2 : 0);
+        this.halfmoveClock = board.getHalfmoveClock();
+        this.gameHistory = board.getHistory();
+        this.historySize = 0;
+        this.historyMoves = new int[INITIAL_HISTORY];
+        this.historyCaptured = new int[INITIAL_HISTORY];
+        this.historyCastlingRights = new int[INITIAL_HISTORY];
+        this.historyEnPassantTile = new int[INITIAL_HISTORY];
+        this.historyCastledFlags = new int[INITIAL_HISTORY];
+        this.historyZobristKeys = new long[INITIAL_HISTORY];
+        this.historyHalfmoveClocks = new int[INITIAL_HISTORY];
+    }
+
+    public Color getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public long getPieceBitboard(final Color color,
+                                 final PieceType pieceType) {
+        return this.pieceBitboards[BitboardUtils.pieceIndex(color, pieceType)];
+    }
+
+    //the board's own array, only for reading
+    long[] getPieceBitboards() {
+        return this.pieceBitboards;
+    }
+
+    //scratch room for static exchange evaluation on this board's thread
+    int[] getExchangeGains() {
+        return this.exchangeGains;
+    }
+
+    public long getOccupancy(final Color color) {
+        return this.occupancy[color.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return this.occupancy[0] | this.occupancy[1];
+    }
+
+    public boolean isEmpty(final int coordinate) {
+        return this.mailbox[coordinate] == EMPTY;
+    }
+
+    public PieceType getPieceType(final int coordinate) {
+        return PIECE_TYPES[this.mailbox[coordinate] % BitboardUtils.NUM_PIECE_TYPES];
+    }
+
+    public Color getPieceColor(final int coordinate) {
+        return this.mailbox[coordinate] < BitboardUtils.NUM_PIECE_TYPES ? Color.WHITE : Color.BLACK;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getEnPassantTile() {
+        return this.enPassantTile;
+    }
+
+    public boolean isCastled(final Color color) {
+        return (this.castledFlags & (1 << color.ordinal())) != 0;
+    }
+
+    public int getKingTile(final Color color) {
+        return BitboardUtils.firstTile(this.pieceBitboards[BitboardUtils.pieceIndex(color, PieceType.KING)]);
+    }
+
+    //moves made on this board since it was built, which in a search is the distance from the root
+    public int getPly() {
+        return this.historySize;
+    }
+
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    //whether the position came up before since the last capture or pawn move, in this search or in the game
+    //before it. A search can score the first repetition as a draw, as the side that repeated could have
+    //played whatever follows it the first time round
+    public boolean isRepetition() {
+        final int window = Math.min(this.halfmoveClock, this.historySize + this.gameHistory.size());
+        for (int pliesAgo = 2; pliesAgo <= window; pliesAgo += 2) {
+            final long key = pliesAgo <= this.historySize ?
+                    this.historyZobristKeys[this.historySize - pliesAgo] :
+                    this.gameHistory.getKey(pliesAgo - this.historySize);
+            if (key == this.zobristKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //fifty moves each without a capture or a pawn move
+    public boolean isFiftyMoveRule() {
+        return this.halfmoveClock >= GameHistory.FIFTY_MOVE_RULE_PLIES;
+    }
+
+    public boolean isTileAttacked(final int coordinate,
+                                  final Color attacker) {
+        return BitboardUtils.attackersTo(coordinate, attacker, this.pieceBitboards, getOccupancy()) != 0;
+    }
+
+    public boolean isInCheck(final Color color) {
+        return isTileAttacked(getKingTile(color), color.opposite());
+    }
+
+    public boolean isInCheck() {
+        return isInCheck(this.sideToMove);
+    }
+
+    //for moves this board generated, which carry what they capture
+    public boolean isCapture(final int move) {
+        return MoveUtils.isCapture(move);
+    }
+
+    //plays a pseudo legal move, returning false (with the board left untouched) when it leaves the mover in check
+    public boolean makeMove(final int move) {
+        final int from = getCurrentCoordinate(move);
+        final int to = getDestinationCoordinate(move);
+        final int kind = getKind(move);
+        final int moving = this.mailbox[from];
+        final Color mover = this.sideToMove;
+        final int capturedTile = kind == EN_PASSANT ? to - (mover.getDirection() * BoardUtils.NUM_TILES_PER_ROW) : to;
+        final int captured = this.mailbox[capturedTile];
+        pushHistory(move, captured);
+        if (captured != EMPTY) {
+            removePiece(captured, capturedTile);
+        }
+        removePiece(moving, from);
+        putPiece(isPromotion(move) ? BitboardUtils.pieceIndex(mover, getPromotionType(move)) : moving, to);
+        if (kind == KING_SIDE_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if (kind == QUEEN_SIDE_CASTLE) {
+            movePiece(to - 2, to + 1);
+        }
+        if (moving % BitboardUtils.NUM_PIECE_TYPES == PieceType.KING.ordinal()) {
+            final int castledFlag = 1 << mover.ordinal();
+            this.castledFlags = isCastlingMove(move) ? this.castledFlags | castledFlag : this.castledFlags & ~castledFlag;
+        }
+        this.zobristKey ^= ZobristUtils.castlingKey(this.castlingRights) ^ ZobristUtils.enPassantKey(this.enPassantTile);
+        this.castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        this.enPassantTile = kind == PAWN_JUMP ? (from + to) / 2 : -1;
+        this.halfmoveClock = captured != EMPTY || moving % BitboardUtils.NUM_PIECE_TYPES == PieceType.PAWN.ordinal() ?
+                0 : this.halfmoveClock + 1;
+        this.sideToMove = mover.opposite();
+        this.zobristKey ^= ZobristUtils.castlingKey(this.castlingRights) ^ ZobristUtils.enPassantKey(this.enPassantTile) ^
+                           ZobristUtils.sideKey(mover) ^ ZobristUtils.sideKey(this.sideToMove);
+        if (isInCheck(mover)) {
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    public void unmakeMove() {
+        this.historySize--;
+        final int index = this.historySize;
+        final int move = this.historyMoves[index];
+        final int captured = this.historyCaptured[index];
+        final int from = getCurrentCoordinate(move);
+        final int to = getDestinationCoordinate(move);
+        final int kind = getKind(move);
+        final Color mover = this.sideToMove.opposite();
+        final int moved = isPromotion(move) ? BitboardUtils.pieceIndex(mover, PieceType.PAWN) : this.mailbox[to];
+        removePiece(this.mailbox[to], to);
+        putPiece(moved, from);
+        if (kind == KING_SIDE_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if (kind == QUEEN_SIDE_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+        if (captured != EMPTY) {
+            putPiece(captured, kind == EN_PASSANT ? to - (mover.getDirection() * BoardUtils.NUM_TILES_PER_ROW) : to);
+        }
+        this.castlingRights = this.historyCastlingRights[index];
+        this.enPassantTile = this.historyEnPassantTile[index];
+        this.castledFlags = this.historyCastledFlags[index];
+        this.zobristKey = this.historyZobristKeys[index];
+        this.halfmoveClock = this.historyHalfmoveClocks[index];
+        this.sideToMove = mover;
+    }
+
+    public int[] generateMoves() {
+        return generateMoves(this.sideToMove);
+    }
+
+    public int[] generateMoves(final Color color) {
+        return Arrays.copyOf(this.moveBuffer, generateMoves(color, this.moveBuffer, 0));
+    }
+
+    public int generateMoves(final int[] moves,
+                             final int offset) {
+        return generateMoves(this.sideToMove, moves, offset);
+    }
+
+    //pseudo legal moves for either color, including castles, in the same shape Player.getLegalMoves() has. They are
+    //written into moves from offset on, which needs room for MAX_MOVES, and the index after the last one is returned.
+    //A search that keeps a buffer per ply generates without allocating
+    public int generateMoves(final Color color,
+                             final int[] moves,
+                             final int offset) {
+        int count = offset;
+        final long own = this.occupancy[color.ordinal()];
+        final long enemy = this.occupancy[color.opposite().ordinal()];
+        final long all = own | enemy;
+        final int pieceOffset = color.ordinal() * BitboardUtils.NUM_PIECE_TYPES;
+
+        long pawns = this.pieceBitboards[pieceOffset + PieceType.PAWN.ordinal()];
+        while (pawns != 0) {
+            final int from = BitboardUtils.firstTile(pawns);
+            pawns &= pawns - 1;
+            final int forward = from + (color.getDirection() * BoardUtils.NUM_TILES_PER_ROW);
+            if (BoardUtils.isValidTileCoordinate(forward) && !BitboardUtils.isOccupied(all, forward)) {
+                count = addPawnMoves(color, from, forward, moves, count);
+                final int jump = forward + (color.getDirection() * BoardUtils.NUM_TILES_PER_ROW);
+                if (isPawnStartTile(color, from) && !BitboardUtils.isOccupied(all, jump)) {
+                    moves[count++] = createMove(from, jump, PAWN_JUMP);
+                }
+            }
+            final long pawnAttacks = BitboardUtils.pawnAttacks(color, from);
+            long captures = pawnAttacks & enemy;
+            while (captures != 0) {
+                count = addPawnMoves(color, from, BitboardUtils.firstTile(captures), moves, count);
+                captures &= captures - 1;
+            }
+            if (this.enPassantTile != -1 && color == this.sideToMove &&
+                BitboardUtils.isOccupied(pawnAttacks, this.enPassantTile)) {
+                moves[count++] = createMove(from, this.enPassantTile, EN_PASSANT);
+            }
+        }
+        for (int type = PieceType.KNIGHT.ordinal(); type <= PieceType.KING.ordinal(); type++) {
+            long pieces = this.pieceBitboards[pieceOffset + type];
+            while (pieces != 0) {
+                final int from = BitboardUtils.firstTile(pieces);
+                pieces &= pieces - 1;
+                long targets = attacks(PIECE_TYPES[type], from, all) & ~own;
+                while (targets != 0) {
+                    moves[count++] = createMove(from, BitboardUtils.firstTile(targets), NORMAL);
+                    targets &= targets - 1;
+                }
+            }
+        }
+        count = addCastles(color, moves, count);
+        for (int i = offset; i < count; i++) {
+            moves[i] = withPieces(moves[i], this.mailbox[getCurrentCoordinate(moves[i])], capturedPiece(moves[i], color));
+        }
+        return count;
+    }
+
+    //scratch room for the moves of both colors, for a caller on this board's thread that looks at them and lets them
+    //go, like an evaluation. Anything written there is only good until the next caller
+    public int[] getMoveBuffer() {
+        return this.moveBuffer;
+    }
+
+    public boolean hasLegalMove() {
+        final int[] moves = this.legalityBuffer;
+        final int count = generateMoves(moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) {
+                unmakeMove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int addCastles(final Color color,
+                           final int[] moves,
+                           int count) {
+        final int kingSide = color.isWhite() ? Board.WHITE_KING_SIDE : Board.BLACK_KING_SIDE;
+        final int queenSide = color.isWhite() ? Board.WHITE_QUEEN_SIDE : Board.BLACK_QUEEN_SIDE;
+        if ((this.castlingRights & (kingSide | queenSide)) == 0 || isInCheck(color)) {
+            return count;
+        }
+        final int kingTile = getKingTile(color);
+        final Color opponent = color.opposite();
+        if ((this.castlingRights & kingSide) != 0 &&
+            isEmpty(kingTile + 1) && isEmpty(kingTile + 2) &&
+            !isTileAttacked(kingTile + 1, opponent) && !isTileAttacked(kingTile + 2, opponent)) {
+            moves[count++] = createMove(kingTile, kingTile + 2, KING_SIDE_CASTLE);
+        }
+        if ((this.castlingRights & queenSide) != 0 &&
+            isEmpty(kingTile - 1) && isEmpty(kingTile - 2) && isEmpty(kingTile - 3) &&
+            !isTileAttacked(kingTile - 1, opponent) && !isTileAttacked(kingTile - 2, opponent)) {
+            moves[count++] = createMove(kingTile, kingTile - 2, QUEEN_SIDE_CASTLE);
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(final Color color,
+                                    final int from,
+                                    final int to,
+                                    final int[] moves,
+                                    int count) {
+        if (color.isPawnPromotionSquare(to)) {
+            for (final PieceType promotionType : PROMOTION_TYPES) {
+                moves[count++] = createPromotion(from, to, promotionType);
+            }
+        } else {
+            moves[count++] = createMove(from, to, NORMAL);
+        }
+        return count;
+    }
+
+    private int capturedPiece(final int move,
+                              final Color mover) {
+        return getKind(move) == EN_PASSANT ? BitboardUtils.pieceIndex(mover.opposite(), PieceType.PAWN) :
+               this.mailbox[getDestinationCoordinate(move)];
+    }
+
+    private static boolean isPawnStartTile(final Color color,
+                                           final int coordinate) {
+        return BitboardUtils.isOccupied(color.isWhite() ? BoardUtils.SEVENTH_ROW : BoardUtils.SECOND_ROW, coordinate);
+    }
+
+    private static long attacks(final PieceType pieceType,
+                                final int coordinate,
+                                final long occupancy) {
+        switch (pieceType) {
+            case KNIGHT:
+                return BitboardUtils.knightAttacks(coordinate);
+            case BISHOP:
+                return BitboardUtils.bishopAttacks(coordinate, occupancy);
+            case ROOK:
+                return BitboardUtils.rookAttacks(coordinate, occupancy);
+            case QUEEN:
+                return BitboardUtils.queenAttacks(coordinate, occupancy);
+            case KING:
+                return BitboardUtils.kingAttacks(coordinate);
+            default:
+                throw new RuntimeException("should not reach here!");
+        }
+    }
+
+    private void pushHistory(final int move,
+                             final int captured) {
+        if (this.historySize == this.historyMoves.length) {
+            final int newLength = this.historySize * 2;
+            this.historyMoves = Arrays.copyOf(this.historyMoves, newLength);
+            this.historyCaptured = Arrays.copyOf(this.historyCaptured, newLength);
+            this.historyCastlingRights = Arrays.copyOf(this.historyCastlingRights, newLength);
+            this.historyEnPassantTile = Arrays.copyOf(this.historyEnPassantTile, newLength);
+            this.historyCastledFlags = Arrays.copyOf(this.historyCastledFlags, newLength);
+            this.historyZobristKeys = Arrays.copyOf(this.historyZobristKeys, newLength);
+            this.historyHalfmoveClocks = Arrays.copyOf(this.historyHalfmoveClocks, newLength);
+        }
+        final int index = this.historySize++;
+        this.historyMoves[index] = move;
+        this.historyCaptured[index] = captured;
+        this.historyCastlingRights[index] = this.castlingRights;
+        this.historyEnPassantTile[index] = this.enPassantTile;
+        this.historyCastledFlags[index] = this.castledFlags;
+        this.historyZobristKeys[index] = this.zobristKey;
+        this.historyHalfmoveClocks[index] = this.halfmoveClock;
+    }
+
+    private void putPiece(final int piece,
+                          final int coordinate) {
+        final long mask = BitboardUtils.tileMask(coordinate);
+        this.pieceBitboards[piece] |= mask;
+        this.occupancy[piece / BitboardUtils.NUM_PIECE_TYPES] |= mask;
+        this.mailbox[coordinate] = piece;
+        this.zobristKey ^= ZobristUtils.pieceKey(piece, coordinate);
+    }
+
+    private void removePiece(final int piece,
+                             final int coordinate) {
+        final long mask = ~BitboardUtils.tileMask(coordinate);
+        this.pieceBitboards[piece] &= mask;
+        this.occupancy[piece / BitboardUtils.NUM_PIECE_TYPES] &= mask;
+        this.mailbox[coordinate] = EMPTY;
+        this.zobristKey ^= ZobristUtils.pieceKey(piece, coordinate);
+    }
+
+    private void movePiece(final int from,
+                           final int to) {
+        final int piece = this.mailbox[from];
+        removePiece(piece, from);
+        putPiece(piece, to);
+    }
+
+    //moving from or to one of these tiles drops the castling rights that depend on the piece standing there
+    private static int[] initCastlingMasks() {
+        final int[] masks = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(masks, Board.WHITE_KING_SIDE | Board.WHITE_QUEEN_SIDE | Board.BLACK_KING_SIDE | Board.BLACK_QUEEN_SIDE);
+        masks[60] &= ~(Board.WHITE_KING_SIDE | Board.WHITE_QUEEN_SIDE);
+        masks[63] &= ~Board.WHITE_KING_SIDE;
+        masks[56] &= ~Board.WHITE_QUEEN_SIDE;
+        masks[4] &= ~(Board.BLACK_KING_SIDE | Board.BLACK_QUEEN_SIDE);
+        masks[7] &= ~Board.BLACK_KING_SIDE;
+        masks[0] &= ~Board.BLACK_QUEEN_SIDE;
+        return masks;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Color;
+
+import java.util.Random;
+
+// random keys for Zobrist hashing. A position's key is the XOR of the key of every piece on its tile,
+// the side key when black is to move, the key of the castling rights and the key of the en passant file,
+// so making a move only has to XOR out what it changes and XOR in the result
+public enum ZobristUtils {
+
+    INSTANCE;
+
+    private static final long SEED = 0x5DEECE66DL;
+    private static final long[][] PIECE_KEYS = new long[BitboardUtils.NUM_PIECE_BITBOARDS][BoardUtils.NUM_TILES];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        //a fixed seed keeps keys the same from run to run, which makes search logs reproducible
+        final Random random = new Random(SEED);
+        for (final long[] pieceKeys : PIECE_KEYS) {
+            for (int i = 0; i < pieceKeys.length; i++) {
+                pieceKeys[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    public static long pieceKey(final int pieceIndex,
+                                final int coordinate) {
+        return PIECE_KEYS[pieceIndex][coordinate];
+    }
+
+    public static long castlingKey(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    //keyed on the file of the tile a pawn just jumped over, or nothing when there is none
+    public static long enPassantKey(final int enPassantTile) {
+        return enPassantTile == -1 ? 0L : EN_PASSANT_KEYS[enPassantTile % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    public static long sideKey(final Color sideToMove) {
+        return sideToMove.isBlack() ? BLACK_TO_MOVE_KEY : 0L;
+    }
+
+}
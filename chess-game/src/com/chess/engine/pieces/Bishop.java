@@ -1,21 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.MajorAttackMove;
-import com.chess.engine.board.Move.MajorMove;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public final class Bishop extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = {-9, -7, 7, 9};
-
     public Bishop(final Color Color,
                   final int piecePosition) {
          super(PieceType.BISHOP, Color, piecePosition, true);
@@ -29,32 +22,7 @@ public final class Bishop extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) {
-            int candidateDestinationCoordinate = this.piecePosition;
-            while (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                if (isFirstColumnExclusion(currentCandidateOffset, candidateDestinationCoordinate) ||
-                    isEighthColumnExclusion(currentCandidateOffset, candidateDestinationCoordinate)) {
-                    break;
-                }
-                candidateDestinationCoordinate += currentCandidateOffset;
-                if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
-                    if (pieceAtDestination == null) {
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    }
-                    else {
-                        final Color pieceColor = pieceAtDestination.getPieceColor();
-                        if (this.pieceColor != pieceColor) {
-                            legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate,
-                                    pieceAtDestination));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        return Collections.unmodifiableList(legalMoves);
+        return calculateMovesTo(board, BitboardUtils.bishopAttacks(this.piecePosition, board.getOccupancy()));
     }
 
     @Override
@@ -72,16 +40,4 @@ public final class Bishop extends Piece {
         return this.pieceType.toString();
     }
 
-    private static boolean isFirstColumnExclusion(final int currentCandidate,
-                                                  final int candidateDestinationCoordinate) {
-        return (BoardUtils.INSTANCE.FIRST_COLUMN.get(candidateDestinationCoordinate) &&
-                ((currentCandidate == -9) || (currentCandidate == 7)));
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentCandidate,
-                                                   final int candidateDestinationCoordinate) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(candidateDestinationCoordinate) &&
-                        ((currentCandidate == -7) || (currentCandidate == 9));
-    }
-
 }
\ No newline at end of file
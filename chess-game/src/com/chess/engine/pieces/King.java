@@ -1,20 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.MajorAttackMove;
-import com.chess.engine.board.Move.MajorMove;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public final class King extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -9, -8, -7, -1, 1, 7, 8, 9 };
     private final boolean isCastled;
     private final boolean kingSideCastleCapable;
     private final boolean queenSideCastleCapable;
@@ -55,27 +49,7 @@ public final class King extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) {
-            if (isFirstColumnExclusion(this.piecePosition, currentCandidateOffset) ||
-                isEighthColumnExclusion(this.piecePosition, currentCandidateOffset)) {
-                continue;
-            }
-            final int candidateDestinationCoordinate = this.piecePosition + currentCandidateOffset;
-            if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
-                if (pieceAtDestination == null) {
-                    legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                } else {
-                    final Color pieceAtDestinationColor = pieceAtDestination.getPieceColor();
-                    if (this.pieceColor != pieceAtDestinationColor) {
-                        legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate,
-                                pieceAtDestination));
-                    }
-                }
-            }
-        }
-        return Collections.unmodifiableList(legalMoves);
+        return calculateMovesTo(board, BitboardUtils.kingAttacks(this.piecePosition));
     }
 
     @Override
@@ -113,17 +87,4 @@ public final class King extends Piece {
         return (31 * super.hashCode()) + (isCastled ? 1 : 0);
     }
 
-    private static boolean isFirstColumnExclusion(final int currentCandidate,
-                                                  final int candidateDestinationCoordinate) {
-        return BoardUtils.INSTANCE.FIRST_COLUMN.get(currentCandidate)
-                && ((candidateDestinationCoordinate == -9) || (candidateDestinationCoordinate == -1) ||
-                (candidateDestinationCoordinate == 7));
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentCandidate,
-                                                   final int candidateDestinationCoordinate) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(currentCandidate)
-                && ((candidateDestinationCoordinate == -7) || (candidateDestinationCoordinate == 1) ||
-                (candidateDestinationCoordinate == 9));
-    }
 }
\ No newline at end of file
@@ -1,21 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.MajorAttackMove;
-import com.chess.engine.board.Move.MajorMove;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public final class Knight extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -17, -15, -10, -6, 6, 10, 15, 17 };
-
     public Knight(final Color Color,
                   final int piecePosition) {
         super(PieceType.KNIGHT, Color, piecePosition, true);
@@ -29,29 +22,7 @@ public final class Knight extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) {
-            if(isFirstColumnExclusion(this.piecePosition, currentCandidateOffset) ||
-               isSecondColumnExclusion(this.piecePosition, currentCandidateOffset) ||
-               isSeventhColumnExclusion(this.piecePosition, currentCandidateOffset) ||
-               isEighthColumnExclusion(this.piecePosition, currentCandidateOffset)) {
-                continue;
-            }
-            final int candidateDestinationCoordinate = this.piecePosition + currentCandidateOffset;
-            if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
-                if (pieceAtDestination == null) {
-                    legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                } else {
-                    final Color pieceAtDestinationColor = pieceAtDestination.getPieceColor();
-                    if (this.pieceColor != pieceAtDestinationColor) {
-                        legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate,
-                                pieceAtDestination));
-                    }
-                }
-            }
-        }
-        return Collections.unmodifiableList(legalMoves);
+        return calculateMovesTo(board, BitboardUtils.knightAttacks(this.piecePosition));
     }
 
     @Override
@@ -69,26 +40,4 @@ public final class Knight extends Piece {
         return this.pieceType.toString();
     }
 
-    private static boolean isFirstColumnExclusion(final int currentPosition,
-                                                  final int candidateOffset) {
-        return BoardUtils.INSTANCE.FIRST_COLUMN.get(currentPosition) && ((candidateOffset == -17) ||
-                (candidateOffset == -10) || (candidateOffset == 6) || (candidateOffset == 15));
-    }
-
-    private static boolean isSecondColumnExclusion(final int currentPosition,
-                                                   final int candidateOffset) {
-        return BoardUtils.INSTANCE.SECOND_COLUMN.get(currentPosition) && ((candidateOffset == -10) || (candidateOffset == 6));
-    }
-
-    private static boolean isSeventhColumnExclusion(final int currentPosition,
-                                                    final int candidateOffset) {
-        return BoardUtils.INSTANCE.SEVENTH_COLUMN.get(currentPosition) && ((candidateOffset == -6) || (candidateOffset == 10));
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition,
-                                                   final int candidateOffset) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(currentPosition) && ((candidateOffset == -15) || (candidateOffset == -6) ||
-                (candidateOffset == 10) || (candidateOffset == 17));
-    }
-
 }
\ No newline at end of file
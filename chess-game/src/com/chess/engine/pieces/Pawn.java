@@ -1,8 +1,8 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
 import com.chess.engine.board.Move.*;
 
@@ -14,8 +14,6 @@ import java.util.List;
 public final class Pawn
         extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = {8, 16, 7, 9};
-
     public Pawn(final Color Color,
                 final int piecePosition) {
         super(PieceType.PAWN, Color, piecePosition, true);
@@ -35,108 +33,54 @@ public final class Pawn
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
         final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) {
-            int candidateDestinationCoordinate =
-                    this.piecePosition + (this.pieceColor.getDirection() * currentCandidateOffset);
-            if (!BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                continue;
-            }
-            if (currentCandidateOffset == 8 && board.getPiece(candidateDestinationCoordinate) == null) {
-                if (this.pieceColor.isPawnPromotionSquare(candidateDestinationCoordinate)) {
-                    legalMoves.add(new PawnPromotion(
-                            new PawnMove(board, this, candidateDestinationCoordinate), PieceUtils.INSTANCE.getMovedQueen(this.pieceColor, candidateDestinationCoordinate)));
-                    legalMoves.add(new PawnPromotion(
-                            new PawnMove(board, this, candidateDestinationCoordinate), PieceUtils.INSTANCE.getMovedRook(this.pieceColor, candidateDestinationCoordinate)));
-                    legalMoves.add(new PawnPromotion(
-                            new PawnMove(board, this, candidateDestinationCoordinate), PieceUtils.INSTANCE.getMovedBishop(this.pieceColor, candidateDestinationCoordinate)));
-                    legalMoves.add(new PawnPromotion(
-                            new PawnMove(board, this, candidateDestinationCoordinate), PieceUtils.INSTANCE.getMovedKnight(this.pieceColor, candidateDestinationCoordinate)));
-                }
-                else {
-                    legalMoves.add(new PawnMove(board, this, candidateDestinationCoordinate));
-                }
-            }
-            else if (currentCandidateOffset == 16 && this.isFirstMove() &&
-                    ((BoardUtils.INSTANCE.SECOND_ROW.get(this.piecePosition) && this.pieceColor.isBlack()) ||
-                     (BoardUtils.INSTANCE.SEVENTH_ROW.get(this.piecePosition) && this.pieceColor.isWhite()))) {
-                final int behindCandidateDestinationCoordinate =
-                        this.piecePosition + (this.pieceColor.getDirection() * 8);
-                if (board.getPiece(candidateDestinationCoordinate) == null &&
-                    board.getPiece(behindCandidateDestinationCoordinate) == null) {
-                    legalMoves.add(new PawnJump(board, this, candidateDestinationCoordinate));
-                }
-            }
-            else if (currentCandidateOffset == 7 &&
-                    !((BoardUtils.INSTANCE.EIGHTH_COLUMN.get(this.piecePosition) && this.pieceColor.isWhite()) ||
-                      (BoardUtils.INSTANCE.FIRST_COLUMN.get(this.piecePosition) && this.pieceColor.isBlack()))) {
-                if(board.getPiece(candidateDestinationCoordinate) != null) {
-                    final Piece pieceOnCandidate = board.getPiece(candidateDestinationCoordinate);
-                    if (this.pieceColor != pieceOnCandidate.getPieceColor()) {
-                        if (this.pieceColor.isPawnPromotionSquare(candidateDestinationCoordinate)) {
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate), PieceUtils.INSTANCE.getMovedQueen(this.pieceColor, candidateDestinationCoordinate)));
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate), PieceUtils.INSTANCE.getMovedRook(this.pieceColor, candidateDestinationCoordinate)));
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate), PieceUtils.INSTANCE.getMovedBishop(this.pieceColor, candidateDestinationCoordinate)));
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate), PieceUtils.INSTANCE.getMovedKnight(this.pieceColor, candidateDestinationCoordinate)));
-                        }
-                        else {
-                            legalMoves.add(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
-                    }
-                } else if (board.getEnPassantPawn() != null && board.getEnPassantPawn().getPiecePosition() ==
-                           (this.piecePosition + (this.pieceColor.getOppositeDirection()))) {
-                    final Piece pieceOnCandidate = board.getEnPassantPawn();
-                    if (this.pieceColor != pieceOnCandidate.getPieceColor()) {
-                        legalMoves.add(
-                                new PawnEnPassantAttack(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-
-                    }
-                }
-            }
-            else if (currentCandidateOffset == 9 &&
-                    !((BoardUtils.INSTANCE.FIRST_COLUMN.get(this.piecePosition) && this.pieceColor.isWhite()) ||
-                      (BoardUtils.INSTANCE.EIGHTH_COLUMN.get(this.piecePosition) && this.pieceColor.isBlack()))) {
-                if(board.getPiece(candidateDestinationCoordinate) != null) {
-                    if (this.pieceColor !=
-                            board.getPiece(candidateDestinationCoordinate).getPieceColor()) {
-                        if (this.pieceColor.isPawnPromotionSquare(candidateDestinationCoordinate)) {
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate,
-                                            board.getPiece(candidateDestinationCoordinate)), PieceUtils.INSTANCE.getMovedQueen(this.pieceColor, candidateDestinationCoordinate)));
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate,
-                                            board.getPiece(candidateDestinationCoordinate)), PieceUtils.INSTANCE.getMovedRook(this.pieceColor, candidateDestinationCoordinate)));
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate,
-                                            board.getPiece(candidateDestinationCoordinate)), PieceUtils.INSTANCE.getMovedBishop(this.pieceColor, candidateDestinationCoordinate)));
-                            legalMoves.add(new PawnPromotion(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate,
-                                            board.getPiece(candidateDestinationCoordinate)), PieceUtils.INSTANCE.getMovedKnight(this.pieceColor, candidateDestinationCoordinate)));
-                        }
-                        else {
-                            legalMoves.add(
-                                    new PawnAttackMove(board, this, candidateDestinationCoordinate,
-                                            board.getPiece(candidateDestinationCoordinate)));
-                        }
-                    }
-                } else if (board.getEnPassantPawn() != null && board.getEnPassantPawn().getPiecePosition() ==
-                        (this.piecePosition - (this.pieceColor.getOppositeDirection()))) {
-                    final Piece pieceOnCandidate = board.getEnPassantPawn();
-                    if (this.pieceColor != pieceOnCandidate.getPieceColor()) {
-                        legalMoves.add(
-                                new PawnEnPassantAttack(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-
-                    }
-                }
+        final long empty = ~board.getOccupancy();
+        final long push = BitboardUtils.pawnPushes(this.pieceColor, this.piecePosition) & empty;
+        if (push != 0) {
+            addMoves(legalMoves, board, Long.numberOfTrailingZeros(push), null);
+            final long jump = BitboardUtils.pawnJumps(this.pieceColor, this.piecePosition) & empty;
+            if (jump != 0 && this.isFirstMove()) {
+                legalMoves.add(new PawnJump(board, this, Long.numberOfTrailingZeros(jump)));
             }
         }
+        final long attacks = BitboardUtils.pawnAttacks(this.pieceColor, this.piecePosition);
+        for (long captures = attacks & board.getOccupancy(this.pieceColor.opposite()); captures != 0; captures &= captures - 1) {
+            final int destination = Long.numberOfTrailingZeros(captures);
+            addMoves(legalMoves, board, destination, board.getPiece(destination));
+        }
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null && enPassantPawn.getPieceColor() != this.pieceColor &&
+            BitboardUtils.isOccupied(attacks, board.getEnPassantTile())) {
+            legalMoves.add(new PawnEnPassantAttack(board, this, board.getEnPassantTile(), enPassantPawn));
+        }
         return Collections.unmodifiableList(legalMoves);
     }
 
+    //the move to destination, or on the last row one for each piece the pawn can promote to
+    private void addMoves(final List<Move> legalMoves,
+                          final Board board,
+                          final int destination,
+                          final Piece pieceAtDestination) {
+        if (!this.pieceColor.isPawnPromotionSquare(destination)) {
+            legalMoves.add(createMove(board, destination, pieceAtDestination));
+            return;
+        }
+        legalMoves.add(new PawnPromotion(createMove(board, destination, pieceAtDestination),
+                PieceUtils.INSTANCE.getMovedQueen(this.pieceColor, destination)));
+        legalMoves.add(new PawnPromotion(createMove(board, destination, pieceAtDestination),
+                PieceUtils.INSTANCE.getMovedRook(this.pieceColor, destination)));
+        legalMoves.add(new PawnPromotion(createMove(board, destination, pieceAtDestination),
+                PieceUtils.INSTANCE.getMovedBishop(this.pieceColor, destination)));
+        legalMoves.add(new PawnPromotion(createMove(board, destination, pieceAtDestination),
+                PieceUtils.INSTANCE.getMovedKnight(this.pieceColor, destination)));
+    }
+
+    private Move createMove(final Board board,
+                            final int destination,
+                            final Piece pieceAtDestination) {
+        return pieceAtDestination == null ? new PawnMove(board, this, destination) :
+               new PawnAttackMove(board, this, destination, pieceAtDestination);
+    }
+
     @Override
     public String toString() {
         return this.pieceType.toString();
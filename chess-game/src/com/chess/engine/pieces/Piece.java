@@ -3,8 +3,13 @@ package com.chess.engine.pieces;
 import com.chess.engine.Color;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.Move.MajorAttackMove;
+import com.chess.engine.board.Move.MajorMove;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public abstract class Piece {
 
@@ -51,6 +56,19 @@ public abstract class Piece {
 
     public abstract Collection<Move> calculateLegalMoves(final Board board);
 
+    //a move to each tile of attacks that does not hold a piece of this piece's own color, capturing what is there
+    Collection<Move> calculateMovesTo(final Board board,
+                                      final long attacks) {
+        final List<Move> legalMoves = new ArrayList<>();
+        for (long targets = attacks & ~board.getOccupancy(this.pieceColor); targets != 0; targets &= targets - 1) {
+            final int destination = Long.numberOfTrailingZeros(targets);
+            final Piece pieceAtDestination = board.getPiece(destination);
+            legalMoves.add(pieceAtDestination == null ? new MajorMove(board, this, destination) :
+                           new MajorAttackMove(board, this, destination, pieceAtDestination));
+        }
+        return Collections.unmodifiableList(legalMoves);
+    }
+
 
     @Override
     public boolean equals(final Object other) {
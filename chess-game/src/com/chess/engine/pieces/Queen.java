@@ -1,22 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.MajorAttackMove;
-import com.chess.engine.board.Move.MajorMove;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public final class Queen extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -9, -8, -7, -1, 1,
-        7, 8, 9 };
-
     public Queen(final Color Color, final int piecePosition) {
         super(PieceType.QUEEN, Color, piecePosition, true);
     }
@@ -29,33 +21,7 @@ public final class Queen extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) {
-            int candidateDestinationCoordinate = this.piecePosition;
-            while (true) {
-                if (isFirstColumnExclusion(currentCandidateOffset, candidateDestinationCoordinate) ||
-                    isEightColumnExclusion(currentCandidateOffset, candidateDestinationCoordinate)) {
-                    break;
-                }
-                candidateDestinationCoordinate += currentCandidateOffset;
-                if (!BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    break;
-                } else {
-                    final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
-                    if (pieceAtDestination == null) {
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    } else {
-                        final Color pieceAtDestinationColor = pieceAtDestination.getPieceColor();
-                        if (this.pieceColor != pieceAtDestinationColor) {
-                            legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate,
-                                    pieceAtDestination));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        return Collections.unmodifiableList(legalMoves);
+        return calculateMovesTo(board, BitboardUtils.queenAttacks(this.piecePosition, board.getOccupancy()));
     }
 
     @Override
@@ -73,16 +39,4 @@ public final class Queen extends Piece {
         return this.pieceType.toString();
     }
 
-    private static boolean isFirstColumnExclusion(final int currentPosition,
-                                                  final int candidatePosition) {
-        return BoardUtils.INSTANCE.FIRST_COLUMN.get(candidatePosition) && ((currentPosition == -9)
-                || (currentPosition == -1) || (currentPosition == 7));
-    }
-
-    private static boolean isEightColumnExclusion(final int currentPosition,
-                                                  final int candidatePosition) {
-        return BoardUtils.INSTANCE.EIGHTH_COLUMN.get(candidatePosition) && ((currentPosition == -7)
-                || (currentPosition == 1) || (currentPosition == 9));
-    }
-
 }
\ No newline at end of file
@@ -1,21 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.MajorAttackMove;
-import com.chess.engine.board.Move.MajorMove;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 
 public final class Rook extends Piece {
 
-    private final static int[] CANDIDATE_MOVE_COORDINATES = { -8, -1, 1, 8 };
-
     public Rook(final Color Color, final int piecePosition) {
         super(PieceType.ROOK, Color, piecePosition, true);
     }
@@ -28,30 +21,7 @@ public final class Rook extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) {
-            int candidateDestinationCoordinate = this.piecePosition;
-            while (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                if (isColumnExclusion(currentCandidateOffset, candidateDestinationCoordinate)) {
-                    break;
-                }
-                candidateDestinationCoordinate += currentCandidateOffset;
-                if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
-                    if (pieceAtDestination == null) {
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    } else {
-                        final Color pieceAtDestinationColor = pieceAtDestination.getPieceColor();
-                        if (this.pieceColor != pieceAtDestinationColor) {
-                            legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate,
-                                    pieceAtDestination));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        return Collections.unmodifiableList(legalMoves);
+        return calculateMovesTo(board, BitboardUtils.rookAttacks(this.piecePosition, board.getOccupancy()));
     }
 
     @Override
@@ -69,10 +39,4 @@ public final class Rook extends Piece {
         return this.pieceType.toString();
     }
 
-    private static boolean isColumnExclusion(final int currentCandidate,
-                                             final int candidateDestinationCoordinate) {
-        return (BoardUtils.INSTANCE.FIRST_COLUMN.get(candidateDestinationCoordinate) && (currentCandidate == -1)) ||
-               (BoardUtils.INSTANCE.EIGHTH_COLUMN.get(candidateDestinationCoordinate) && (currentCandidate == 1));
-    }
-
 }
\ No newline at end of file
@@ -18,15 +18,12 @@ import static com.chess.engine.pieces.Piece.PieceType.ROOK;
 
 public final class BlackPlayer extends Player {
 
-    public BlackPlayer(final Board board,
-                       final Collection<Move> whiteStandardLegals,
-                       final Collection<Move> blackStandardLegals) {
-        super(board, blackStandardLegals, whiteStandardLegals);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
 
         if (!hasCastleOpportunities()) {
             return Collections.emptyList();
@@ -34,13 +31,13 @@ public final class BlackPlayer extends Player {
 
         final List<Move> kingCastles = new ArrayList<>();
 
-        if (this.playerKing.isFirstMove() && this.playerKing.getPiecePosition() == 4 && !this.isInCheck) {
+        if (this.playerKing.isFirstMove() && this.playerKing.getPiecePosition() == 4 && !this.isInCheck()) {
             //blacks king side castle
             if (this.board.getPiece(5) == null && this.board.getPiece(6) == null) {
                 final Piece kingSideRook = this.board.getPiece(7);
                 if (kingSideRook != null && kingSideRook.isFirstMove() &&
-                        Player.calculateAttacksOnTile(5, opponentLegals).isEmpty() &&
-                        Player.calculateAttacksOnTile(6, opponentLegals).isEmpty() &&
+                        !this.board.isSquareAttacked(Color.WHITE, 5) &&
+                        !this.board.isSquareAttacked(Color.WHITE, 6) &&
                         kingSideRook.getPieceType() == ROOK) {
                     if (!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12)) {
                         kingCastles.add(
@@ -54,8 +51,8 @@ public final class BlackPlayer extends Player {
                     this.board.getPiece(3) == null) {
                 final Piece queenSideRook = this.board.getPiece(0);
                 if (queenSideRook != null && queenSideRook.isFirstMove() &&
-                        Player.calculateAttacksOnTile(2, opponentLegals).isEmpty() &&
-                        Player.calculateAttacksOnTile(3, opponentLegals).isEmpty() &&
+                        !this.board.isSquareAttacked(Color.WHITE, 2) &&
+                        !this.board.isSquareAttacked(Color.WHITE, 3) &&
                         queenSideRook.getPieceType() == ROOK) {
                     if (!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12)) {
                         kingCastles.add(
@@ -8,8 +8,10 @@ import com.chess.engine.board.MoveTransition;
 import com.chess.engine.pieces.King;
 import com.chess.engine.pieces.Piece;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static com.chess.engine.pieces.Piece.PieceType.KING;
@@ -19,29 +21,31 @@ public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    protected final boolean isInCheck;
+    //computed on first access and memoized, a racy single check is fine since the results never change
+    private volatile Collection<Move> standardMoves;
+    private volatile Collection<Move> legalMoves;
+    private volatile Boolean isInCheck;
 
-    Player(final Board board,
-           final Collection<Move> playerLegals,
-           final Collection<Move> opponentLegals) {
+    Player(final Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        this.isInCheck = !calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentLegals).isEmpty();
-        playerLegals.addAll(calculateKingCastles(playerLegals, opponentLegals));
-        this.legalMoves = Collections.unmodifiableCollection(playerLegals);
     }
 
     public boolean isInCheck() {
-        return this.isInCheck;
+        Boolean result = this.isInCheck;
+        if (result == null) {
+            result = this.board.isSquareAttacked(getColor().opposite(), this.playerKing.getPiecePosition());
+            this.isInCheck = result;
+        }
+        return result;
     }
 
     public boolean isInCheckMate() {
-       return this.isInCheck && !hasEscapeMoves();
+       return isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isInStaleMate() {
-        return !this.isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isCastled() {
@@ -56,42 +60,67 @@ public abstract class Player {
         return this.playerKing.isQueenSideCastleCapable();
     }
 
+    public Board getBoard() {
+        return this.board;
+    }
+
     public King getPlayerKing() {
         return this.playerKing;
     }
 
     private King establishKing() {
-        return (King) getActivePieces().stream()
-                                       .filter(piece -> piece.getPieceType() == KING)
-                                       .findAny()
-                                       .orElseThrow(RuntimeException::new);
+        final long kingBitboard = this.board.getPieceBitboard(getColor(), KING);
+        if (kingBitboard == 0) {
+            throw new RuntimeException("Should not reach here! " + getColor() + " king could not be established!");
+        }
+        return (King) this.board.getPiece(Long.numberOfTrailingZeros(kingBitboard));
     }
 
     private boolean hasEscapeMoves() {
-        return this.legalMoves.stream()
-                              .anyMatch(move -> makeMove(move)
-                              .getMoveStatus().isDone());
+        return getLegalMoves().stream()
+                              .anyMatch(this.board::isLegal);
     }
 
     public Collection<Move> getLegalMoves() {
-        return this.legalMoves;
+        Collection<Move> result = this.legalMoves;
+        if (result == null) {
+            result = calculateLegalMoves();
+            this.legalMoves = result;
+        }
+        return result;
     }
 
-    static Collection<Move> calculateAttacksOnTile(final int tile,
-                                                   final Collection<Move> moves) {
-        return moves.stream()
-                    .filter(move -> move.getDestinationCoordinate() == tile)
-                    .collect(collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    //the moves of this player's pieces without castles
+    private Collection<Move> getStandardMoves() {
+        Collection<Move> result = this.standardMoves;
+        if (result == null) {
+            result = this.getActivePieces().stream()
+                                           .flatMap(piece -> piece.calculateLegalMoves(this.board).stream())
+                                           .collect(collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+            this.standardMoves = result;
+        }
+        return result;
+    }
+
+    private Collection<Move> calculateLegalMoves() {
+        final Collection<Move> playerLegals = getStandardMoves();
+        final Collection<Move> kingCastles = calculateKingCastles();
+        if (kingCastles.isEmpty()) {
+            return playerLegals;
+        }
+        final List<Move> legals = new ArrayList<>(playerLegals);
+        legals.addAll(kingCastles);
+        return Collections.unmodifiableList(legals);
     }
 
     public MoveTransition makeMove(final Move move) {
-        if (!this.legalMoves.contains(move)) {
+        if (!getLegalMoves().contains(move)) {
             return new MoveTransition(this.board, this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        final Board transitionedBoard = move.execute();
-        return transitionedBoard.currentPlayer().getOpponent().isInCheck() ?
-                new MoveTransition(this.board, this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK) :
-                new MoveTransition(this.board, transitionedBoard, move, MoveStatus.DONE);
+        if (!this.board.isLegal(move)) {
+            return new MoveTransition(this.board, this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
+        }
+        return new MoveTransition(this.board, move.execute(), move, MoveStatus.DONE);
     }
 
     public MoveTransition unMakeMove(final Move move) {
@@ -101,10 +130,9 @@ public abstract class Player {
     public abstract Collection<Piece> getActivePieces();
     public abstract Color getColor();
     public abstract Player getOpponent();
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals,
-                                                             Collection<Move> opponentLegals);
+    protected abstract Collection<Move> calculateKingCastles();
     protected boolean hasCastleOpportunities() {
-        return !this.isInCheck && !this.playerKing.isCastled() &&
+        return !isInCheck() && !this.playerKing.isCastled() &&
                 (this.playerKing.isKingSideCastleCapable() || this.playerKing.isQueenSideCastleCapable());
     }
 
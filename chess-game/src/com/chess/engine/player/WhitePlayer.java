@@ -18,15 +18,12 @@ import static com.chess.engine.pieces.Piece.PieceType.ROOK;
 
 public final class WhitePlayer extends Player {
 
-    public WhitePlayer(final Board board,
-                       final Collection<Move> whiteStandardLegals,
-                       final Collection<Move> blackStandardLegals) {
-        super(board, whiteStandardLegals, blackStandardLegals);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
 
         if(!hasCastleOpportunities()) {
             return Collections.emptyList();
@@ -39,8 +36,8 @@ public final class WhitePlayer extends Player {
             if(this.board.getPiece(61) == null && this.board.getPiece(62) == null) {
                 final Piece kingSideRook = this.board.getPiece(63);
                 if(kingSideRook != null && kingSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(61, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(62, opponentLegals).isEmpty() &&
+                    if(!this.board.isSquareAttacked(Color.BLACK, 61) &&
+                       !this.board.isSquareAttacked(Color.BLACK, 62) &&
                        kingSideRook.getPieceType() == ROOK) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new KingSideCastleMove(this.board, this.playerKing, 62, (Rook) kingSideRook, kingSideRook.getPiecePosition(), 61));
@@ -53,8 +50,8 @@ public final class WhitePlayer extends Player {
                this.board.getPiece(57) == null) {
                 final Piece queenSideRook = this.board.getPiece(56);
                 if(queenSideRook != null && queenSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(58, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(59, opponentLegals).isEmpty() && queenSideRook.getPieceType() == ROOK) {
+                    if(!this.board.isSquareAttacked(Color.BLACK, 58) &&
+                       !this.board.isSquareAttacked(Color.BLACK, 59) && queenSideRook.getPieceType() == ROOK) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing, 58, (Rook) queenSideRook, queenSideRook.getPiecePosition(), 59));
                         }
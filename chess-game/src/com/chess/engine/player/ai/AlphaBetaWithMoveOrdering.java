@@ -20,13 +20,17 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
     private final BoardEvaluator evaluator;
     private final int searchDepth;
     private final MoveSorter moveSorter;
+    private final CutoffHistory cutoffHistory;
+    //a picker for each remaining depth, made on first use
+    private final LegalMovePicker[] pickers;
     private final int quiescenceFactor;
     private long boardsEvaluated;
     private long executionTime;
     private int quiescenceCount;
     private int cutOffsProduced;
+    private int firstMoveCutOffs;
 
-    private enum MoveSorter {
+    enum MoveSorter {
 
         SORT {
             @Override
@@ -56,9 +60,12 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
         this.searchDepth = searchDepth;
         this.quiescenceFactor = quiescenceFactor;
         this.moveSorter = MoveSorter.SORT;
+        this.cutoffHistory = new CutoffHistory();
+        this.pickers = new LegalMovePicker[searchDepth + 1];
         this.boardsEvaluated = 0;
         this.quiescenceCount = 0;
         this.cutOffsProduced = 0;
+        this.firstMoveCutOffs = 0;
     }
 
     @Override
@@ -82,6 +89,7 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
         int currentValue;
         int moveCounter = 1;
         final int numMoves = this.moveSorter.sort(board.currentPlayer().getLegalMoves()).size();
+        this.cutoffHistory.newSearch();
         System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
         System.out.println("\tOrdered moves! : " + this.moveSorter.sort(board.currentPlayer().getLegalMoves()));
         for (final Move move : this.moveSorter.sort(board.currentPlayer().getLegalMoves())) {
@@ -118,8 +126,9 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
             moveCounter++;
         }
         this.executionTime = System.currentTimeMillis() - startTime;
-        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, eval rate = %.1f cutoffCount = %d prune percent = %.2f\n", board.currentPlayer(),
-                bestMove, this.boardsEvaluated, this.executionTime, (1000 * ((double)this.boardsEvaluated/this.executionTime)), this.cutOffsProduced, 100 * ((double)this.cutOffsProduced/this.boardsEvaluated));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, eval rate = %.1f cutoffCount = %d prune percent = %.2f first move cutoffs = %.1f%%\n", board.currentPlayer(),
+                bestMove, this.boardsEvaluated, this.executionTime, (1000 * ((double)this.boardsEvaluated/this.executionTime)), this.cutOffsProduced, 100 * ((double)this.cutOffsProduced/this.boardsEvaluated),
+                100 * ((double)this.firstMoveCutOffs/this.cutOffsProduced));
         return bestMove;
     }
 
@@ -132,15 +141,19 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
             return this.evaluator.evaluate(board, depth);
         }
         int currentHighest = highest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        boolean firstMove = true;
+        final LegalMovePicker picker = pickMoves(board, depth);
+        while (picker.hasNext()) {
+            final Move move = picker.next();
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
                 currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(),
                         calculateQuiescenceDepth(board, move, depth), currentHighest, lowest));
                 if (lowest <= currentHighest) {
-                    this.cutOffsProduced++;
+                    recordCutoff(move, depth, firstMove);
                     break;
                 }
+                firstMove = false;
             }
         }
         return currentHighest;
@@ -155,20 +168,82 @@ public class AlphaBetaWithMoveOrdering extends Observable implements MoveStrateg
             return this.evaluator.evaluate(board, depth);
         }
         int currentLowest = lowest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        boolean firstMove = true;
+        final LegalMovePicker picker = pickMoves(board, depth);
+        while (picker.hasNext()) {
+            final Move move = picker.next();
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
                 currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(),
                         calculateQuiescenceDepth(board, move, depth), highest, currentLowest));
                 if (currentLowest <= highest) {
-                    this.cutOffsProduced++;
+                    recordCutoff(move, depth, firstMove);
                     break;
                 }
+                firstMove = false;
             }
         }
         return currentLowest;
     }
 
+
+    private LegalMovePicker pickMoves(final Board board,
+                                      final int depth) {
+        if (this.pickers[depth] == null) {
+            this.pickers[depth] = new LegalMovePicker();
+        }
+        final LegalMovePicker picker = this.pickers[depth];
+        final int ply = this.searchDepth - depth;
+        picker.clear();
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            picker.add(move, orderingScore(move, ply, this.cutoffHistory));
+        }
+        return picker;
+    }
+
+    //SMART_SORT as one int, with quiet moves that cut off before at this ply, then anywhere, going ahead of the rest.
+    //Its check term is left out, every move of a position shares the same board. Piece types are declared by value
+    static int orderingScore(final Move move,
+                             final int ply,
+                             final CutoffHistory cutoffHistory) {
+        return (move.isAttack() ? 1 << 30 : 0) |
+               (move.isCastlingMove() ? 1 << 29 : 0) |
+               (killerRank(move, ply, cutoffHistory) << 27) |
+               (historyScore(move, cutoffHistory) << 3) |
+               move.getMovedPiece().getPieceType().ordinal();
+    }
+
+    private static int killerRank(final Move move,
+                                  final int ply,
+                                  final CutoffHistory cutoffHistory) {
+        return move.isAttack() ? 0 : cutoffHistory.killerRank(move.getCurrentCoordinate(), move.getDestinationCoordinate(), ply);
+    }
+
+    private static int historyScore(final Move move,
+                                    final CutoffHistory cutoffHistory) {
+        return move.isAttack() ? 0 : cutoffHistory.historyScore(move.getCurrentCoordinate(), move.getDestinationCoordinate());
+    }
+
+    private void recordCutoff(final Move move,
+                              final int depth,
+                              final boolean firstMove) {
+        this.cutOffsProduced++;
+        if (firstMove) {
+            this.firstMoveCutOffs++;
+        }
+        recordQuietCutoff(move, this.searchDepth - depth, depth, this.cutoffHistory);
+    }
+
+    //captures and promotions are ordered ahead of quiet moves anyway, only quiet moves are remembered
+    static void recordQuietCutoff(final Move move,
+                                  final int ply,
+                                  final int depth,
+                                  final CutoffHistory cutoffHistory) {
+        if (!move.isAttack() && !(move instanceof PawnPromotion)) {
+            cutoffHistory.recordCutoff(move.getCurrentCoordinate(), move.getDestinationCoordinate(), ply, depth);
+        }
+    }
+
     private int calculateQuiescenceDepth(final Board board,
                                          final Move move,
                                          final int depth) {
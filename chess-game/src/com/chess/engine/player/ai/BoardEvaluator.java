@@ -1,9 +1,15 @@
 package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
+import com.chess.engine.board.MutableBoard;
 
 public interface BoardEvaluator {
 
+    //a drawn position is worth as much to either side
+    int DRAW_SCORE = 0;
+
     int evaluate(Board board, int depth);
 
+    int evaluate(MutableBoard board, int depth);
+
 }
@@ -0,0 +1,78 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BoardUtils;
+
+import java.util.Arrays;
+
+// the quiet moves that caused cutoffs in a search, so they can be tried early elsewhere in it. Each ply keeps
+// the last two quiet moves that cut off there (killers), as a refutation of one position tends to refute its
+// siblings too, and each from/to pair gains depth squared whenever it cuts off anywhere (history).
+// Moves are keyed by their from and to tiles only, so packed moves and Move objects can share it
+final class CutoffHistory {
+
+    static final int MAX_PLY = 128;
+
+    //kept below the ordering scores of winning captures and killers
+    static final int MAX_HISTORY_SCORE = 1 << 19;
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int NO_KILLER = -1;
+
+    private final int[] killers;
+    private final int[] history;
+
+    CutoffHistory() {
+        this.killers = new int[MAX_PLY * KILLERS_PER_PLY];
+        this.history = new int[BoardUtils.NUM_TILES * BoardUtils.NUM_TILES];
+        Arrays.fill(this.killers, NO_KILLER);
+    }
+
+    //killers only make sense for the positions of one search, history is halved so the last search counts most
+    void newSearch() {
+        Arrays.fill(this.killers, NO_KILLER);
+        for (int i = 0; i < this.history.length; i++) {
+            this.history[i] >>= 1;
+        }
+    }
+
+    void recordCutoff(final int from,
+                      final int to,
+                      final int ply,
+                      final int depth) {
+        final int key = key(from, to);
+        if (ply < MAX_PLY && this.killers[ply * KILLERS_PER_PLY] != key) {
+            this.killers[ply * KILLERS_PER_PLY + 1] = this.killers[ply * KILLERS_PER_PLY];
+            this.killers[ply * KILLERS_PER_PLY] = key;
+        }
+        this.history[key] += depth * depth;
+        if (this.history[key] > MAX_HISTORY_SCORE) {
+            for (int i = 0; i < this.history.length; i++) {
+                this.history[i] >>= 1;
+            }
+        }
+    }
+
+    //2 for the latest killer at this ply, 1 for the one before it, 0 otherwise
+    int killerRank(final int from,
+                   final int to,
+                   final int ply) {
+        if (ply >= MAX_PLY) {
+            return 0;
+        }
+        final int key = key(from, to);
+        if (this.killers[ply * KILLERS_PER_PLY] == key) {
+            return 2;
+        }
+        return this.killers[ply * KILLERS_PER_PLY + 1] == key ? 1 : 0;
+    }
+
+    int historyScore(final int from,
+                     final int to) {
+        return this.history[key(from, to)];
+    }
+
+    private static int key(final int from,
+                           final int to) {
+        return from * BoardUtils.NUM_TILES + to;
+    }
+
+}
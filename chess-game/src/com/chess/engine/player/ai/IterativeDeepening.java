@@ -4,51 +4,58 @@ import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
 import com.chess.engine.board.MoveTransition;
-import com.google.common.collect.ComparisonChain;
 import com.google.common.primitives.Ints;
 
 import java.util.*;
 
 import static com.chess.engine.board.Move.*;
-import static com.google.common.collect.Ordering.from;
 
 public class IterativeDeepening extends Observable implements MoveStrategy {
 
+    //a time controlled search deepens until its time is up, this only bounds it
+    private static final int MAX_SEARCH_DEPTH = 64;
+    //half a pawn either side of the expected score
+    private static final int ASPIRATION_WINDOW = 50;
+
     private final BoardEvaluator evaluator;
     private final int searchDepth;
-    private final MoveSorter moveSorter;
+    private final TimeControl timeControl;
+    //aspiration windows at the root and principal variation search below it
+    private final boolean narrowWindows;
+    //a picker for each remaining depth, made on first use
+    private final LegalMovePicker[] pickers;
     private long boardsEvaluated;
     private long executionTime;
+    private long hardDeadline;
     private int cutOffsProduced;
 
-    private enum MoveSorter {
+    public IterativeDeepening(final int searchDepth) {
+        this(searchDepth, true);
+    }
 
-        SORT {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return from(SMART_SORT).immutableSortedCopy(moves);
-            }
-        };
+    public IterativeDeepening(final int searchDepth,
+                              final boolean narrowWindows) {
+        this(searchDepth, null, narrowWindows);
+    }
 
-        public static Comparator<Move> SMART_SORT = new Comparator<Move>() {
-            @Override
-            public int compare(final Move move1, final Move move2) {
-                return ComparisonChain.start()
-                        .compareTrueFirst(BoardUtils.isThreatenedBoardImmediate(move1.getBoard()), BoardUtils.isThreatenedBoardImmediate(move2.getBoard()))
-                        .compareTrueFirst(move1.isAttack(), move2.isAttack())
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(move2.getMovedPiece().getPieceValue(), move1.getMovedPiece().getPieceValue())
-                        .result();
-            }
-        };
+    public IterativeDeepening(final TimeControl timeControl) {
+        this(timeControl, true);
+    }
 
-        abstract Collection<Move> sort(Collection<Move> moves);
+    public IterativeDeepening(final TimeControl timeControl,
+                              final boolean narrowWindows) {
+        this(MAX_SEARCH_DEPTH, timeControl, narrowWindows);
     }
 
-    public IterativeDeepening(final int searchDepth) {
+    private IterativeDeepening(final int searchDepth,
+                               final TimeControl timeControl,
+                               final boolean narrowWindows) {
         this.evaluator = StandardBoardEvaluator.get();
         this.searchDepth = searchDepth;
-        this.moveSorter = MoveSorter.SORT;
+        this.timeControl = timeControl;
+        this.narrowWindows = narrowWindows;
+        this.pickers = new LegalMovePicker[searchDepth + 1];
+        this.hardDeadline = Long.MAX_VALUE;
         this.boardsEvaluated = 0;
         this.cutOffsProduced = 0;
     }
@@ -67,10 +74,18 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
     public Move execute(final Board board) {
 
         final long startTime = System.currentTimeMillis();
-        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+        final long softDeadline;
+        if (this.timeControl != null) {
+            softDeadline = startTime + this.timeControl.getSoftLimitMillis();
+            this.hardDeadline = startTime + this.timeControl.getHardLimitMillis();
+            System.out.println(board.currentPlayer() + " THINKING with " + this.timeControl);
+        } else {
+            softDeadline = Long.MAX_VALUE;
+            this.hardDeadline = Long.MAX_VALUE;
+            System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+        }
 
-        MoveOrderingBuilder builder = new MoveOrderingBuilder();
-        builder.setOrder(board.currentPlayer().getColor().isWhite() ? Ordering.DESC : Ordering.ASC);
+        MoveOrderingBuilder builder = createBuilder(board);
         for(final Move move : board.currentPlayer().getLegalMoves()) {
             builder.addMoveOrderingRecord(move, 0);
         }
@@ -78,36 +93,55 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
         Move bestMove = MoveFactory.getNullMove();
         int currentDepth = 1;
 
-        int highestSeenValue = Integer.MIN_VALUE;
-        int lowestSeenValue = Integer.MAX_VALUE;
+        //scores from the last two depths, odd and even depths end on different sides' moves and their scores swing apart
+        int previousScore = 0;
+        int secondPreviousScore = 0;
 
-        while (currentDepth <= this.searchDepth) {
+        //the first iteration always runs, past the soft deadline the next one is not started
+        while (currentDepth <= this.searchDepth && (currentDepth == 1 || System.currentTimeMillis() < softDeadline)) {
             final long subTimeStart = System.currentTimeMillis();
-            //int highestSeenValue = Integer.MIN_VALUE;
-            //int lowestSeenValue = Integer.MAX_VALUE;
-            int currentValue;
             final List<MoveScoreRecord> records = builder.build();
-            builder = new MoveOrderingBuilder();
-            builder.setOrder(board.currentPlayer().getColor().isWhite() ? Ordering.DESC : Ordering.ASC);
-            for (final MoveScoreRecord record : records) {
-                final Move move = record.getMove();
-                final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    currentValue = board.currentPlayer().getColor().isWhite() ?
-                            min(moveTransition.getToBoard(), currentDepth - 1, highestSeenValue, lowestSeenValue) :
-                            max(moveTransition.getToBoard(), currentDepth - 1, highestSeenValue, lowestSeenValue);
-                    builder.addMoveOrderingRecord(move, currentValue);
-                    if (board.currentPlayer().getColor().isWhite() && currentValue > highestSeenValue) {
-                        highestSeenValue = currentValue;
-                        bestMove = move;
-                    } else if (board.currentPlayer().getColor().isBlack() && currentValue < lowestSeenValue) {
-                        lowestSeenValue = currentValue;
-                        bestMove = move;
+            int researches = 0;
+            try {
+                MoveScoreRecord result;
+                if (this.narrowWindows && currentDepth > 2) {
+                    //search a window around the score of the last depth of the same parity, opening up whichever
+                    //side the score falls outside of
+                    int alpha = secondPreviousScore - ASPIRATION_WINDOW;
+                    int beta = secondPreviousScore + ASPIRATION_WINDOW;
+                    while (true) {
+                        builder = createBuilder(board);
+                        result = searchRoot(board, records, currentDepth, alpha, beta, builder);
+                        if (result.getScore() <= alpha && alpha != Integer.MIN_VALUE) {
+                            alpha = Integer.MIN_VALUE;
+                        } else if (result.getScore() >= beta && beta != Integer.MAX_VALUE) {
+                            beta = Integer.MAX_VALUE;
+                        } else {
+                            break;
+                        }
+                        researches++;
                     }
+                } else {
+                    //a bound carried over from the last depth would be an aspiration window with no re-search
+                    builder = createBuilder(board);
+                    result = searchRoot(board, records, currentDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, builder);
+                }
+                if (result.getMove() != MoveFactory.getNullMove()) {
+                    bestMove = result.getMove();
                 }
+                secondPreviousScore = previousScore;
+                previousScore = result.getScore();
+            } catch (final SearchAbortedException e) {
+                //only a finished depth is trusted, unless not even the first one finished
+                if (bestMove == MoveFactory.getNullMove()) {
+                    final List<MoveScoreRecord> searched = builder.build();
+                    bestMove = searched.isEmpty() ? firstLegalMove(board) : searched.get(0).getMove();
+                }
+                System.out.println("\t" +toString()+ " out of time at Depth = " +currentDepth+ ", bestMove = " +bestMove);
+                break;
             }
             final long subTime = System.currentTimeMillis()- subTimeStart;
-            System.out.println("\t" +toString()+ " bestMove = " +bestMove+ " Depth = " +currentDepth+ " took " +(subTime) + " ms, ordered moves : " +records);
+            System.out.println("\t" +toString()+ " bestMove = " +bestMove+ " Depth = " +currentDepth+ " took " +(subTime) + " ms, score = " +previousScore+ ", re-searches : " +researches+ ", ordered moves : " +records);
             setChanged();
             notifyObservers(bestMove);
             currentDepth++;
@@ -118,20 +152,59 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
         return bestMove;
     }
 
+    //searches every legal root move inside the window and records its score to order the next depth by. The
+    //result holds the best move, the null move if none beat the window, and the best score clamped to the window
+    private MoveScoreRecord searchRoot(final Board board,
+                                       final List<MoveScoreRecord> records,
+                                       final int depth,
+                                       final int highest,
+                                       final int lowest,
+                                       final MoveOrderingBuilder builder) {
+        final boolean isWhite = board.currentPlayer().getColor().isWhite();
+        int highestSeenValue = highest;
+        int lowestSeenValue = lowest;
+        Move bestMove = MoveFactory.getNullMove();
+        boolean firstMove = true;
+        for (final MoveScoreRecord record : records) {
+            final Move move = record.getMove();
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                final int currentValue = isWhite ?
+                        searchMin(moveTransition.getToBoard(), depth - 1, highestSeenValue, lowestSeenValue, firstMove) :
+                        searchMax(moveTransition.getToBoard(), depth - 1, highestSeenValue, lowestSeenValue, firstMove);
+                builder.addMoveOrderingRecord(move, currentValue);
+                if (isWhite && currentValue > highestSeenValue) {
+                    highestSeenValue = currentValue;
+                    bestMove = move;
+                } else if (!isWhite && currentValue < lowestSeenValue) {
+                    lowestSeenValue = currentValue;
+                    bestMove = move;
+                }
+                firstMove = false;
+            }
+        }
+        return new MoveScoreRecord(bestMove, isWhite ? highestSeenValue : lowestSeenValue);
+    }
+
     public int max(final Board board,
                    final int depth,
                    final int highest,
                    final int lowest) {
+        checkTime();
         if (depth == 0 || BoardUtils.isEndGame(board)) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
         int currentHighest = highest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        boolean firstMove = true;
+        final LegalMovePicker picker = pickMoves(board, depth);
+        while (picker.hasNext()) {
+            final Move move = picker.next();
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(),
-                        depth - 1, currentHighest, lowest));
+                currentHighest = Math.max(currentHighest, searchMin(moveTransition.getToBoard(),
+                        depth - 1, currentHighest, lowest, firstMove));
+                firstMove = false;
                 if (lowest <= currentHighest) {
                     this.cutOffsProduced++;
                     break;
@@ -145,16 +218,21 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
                    final int depth,
                    final int highest,
                    final int lowest) {
+        checkTime();
         if (depth == 0 || BoardUtils.isEndGame(board)) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
         int currentLowest = lowest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        boolean firstMove = true;
+        final LegalMovePicker picker = pickMoves(board, depth);
+        while (picker.hasNext()) {
+            final Move move = picker.next();
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(),
-                        depth - 1, highest, currentLowest));
+                currentLowest = Math.min(currentLowest, searchMax(moveTransition.getToBoard(),
+                        depth - 1, highest, currentLowest, firstMove));
+                firstMove = false;
                 if (currentLowest <= highest) {
                     this.cutOffsProduced++;
                     break;
@@ -164,6 +242,73 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
         return currentLowest;
     }
 
+    //principal variation search: once the first move has set the bound, a later one is searched with a null
+    //window that only proves it no better, and searched again with the whole window when it turns out better
+    private int searchMin(final Board board,
+                          final int depth,
+                          final int highest,
+                          final int lowest,
+                          final boolean firstMove) {
+        if (!this.narrowWindows || firstMove) {
+            return min(board, depth, highest, lowest);
+        }
+        final int value = min(board, depth, highest, highest + 1);
+        return value > highest && value < lowest ? min(board, depth, highest, lowest) : value;
+    }
+
+    private int searchMax(final Board board,
+                          final int depth,
+                          final int highest,
+                          final int lowest,
+                          final boolean firstMove) {
+        if (!this.narrowWindows || firstMove) {
+            return max(board, depth, highest, lowest);
+        }
+        final int value = max(board, depth, lowest - 1, lowest);
+        return value < lowest && value > highest ? max(board, depth, highest, lowest) : value;
+    }
+
+    private LegalMovePicker pickMoves(final Board board,
+                                      final int depth) {
+        if (this.pickers[depth] == null) {
+            this.pickers[depth] = new LegalMovePicker();
+        }
+        final LegalMovePicker picker = this.pickers[depth];
+        picker.clear();
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            picker.add(move, orderingScore(move));
+        }
+        return picker;
+    }
+
+    //captures, then castles, then the more valuable piece moving. Piece types are declared by value
+    private static int orderingScore(final Move move) {
+        return (move.isAttack() ? 1 << 30 : 0) |
+               (move.isCastlingMove() ? 1 << 29 : 0) |
+               move.getMovedPiece().getPieceType().ordinal();
+    }
+
+    private static MoveOrderingBuilder createBuilder(final Board board) {
+        final MoveOrderingBuilder builder = new MoveOrderingBuilder();
+        builder.setOrder(board.currentPlayer().getColor().isWhite() ? Ordering.DESC : Ordering.ASC);
+        return builder;
+    }
+
+    private void checkTime() {
+        if (System.currentTimeMillis() >= this.hardDeadline) {
+            throw SearchAbortedException.INSTANCE;
+        }
+    }
+
+    private static Move firstLegalMove(final Board board) {
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            if (board.currentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                return move;
+            }
+        }
+        return MoveFactory.getNullMove();
+    }
+
     private static class MoveScoreRecord implements Comparable<MoveScoreRecord> {
         final Move move;
         final int score;
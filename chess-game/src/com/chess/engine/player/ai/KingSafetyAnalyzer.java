@@ -1,19 +1,15 @@
 package com.chess.engine.player.ai;
 
+import com.chess.engine.Color;
+import com.chess.engine.board.BitboardUtils;
+import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
-import com.chess.engine.board.Move;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.Player;
-import com.google.common.collect.ImmutableList;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 
 public final class KingSafetyAnalyzer {
 
     private static final KingSafetyAnalyzer INSTANCE = new KingSafetyAnalyzer();
-    private static final List<List<Boolean>> COLUMNS = initColumns();
 
     private KingSafetyAnalyzer() {
     }
@@ -22,32 +18,27 @@ public final class KingSafetyAnalyzer {
         return INSTANCE;
     }
 
-    private static List<List<Boolean>> initColumns() {
-        final List<List<Boolean>> columns = new ArrayList<>();
-        columns.add(BoardUtils.INSTANCE.FIRST_COLUMN);
-        columns.add(BoardUtils.INSTANCE.SECOND_COLUMN);
-        columns.add(BoardUtils.INSTANCE.THIRD_COLUMN);
-        columns.add(BoardUtils.INSTANCE.FOURTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.FIFTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.SIXTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.SEVENTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.EIGHTH_COLUMN);
-        return ImmutableList.copyOf(columns);
-    }
-
+    //the enemy piece attacking the tile nearest the king, and how near that is. The distance comes from the
+    //enemy's attack map, the pieces are only looked through to find the one attacking a tile that near
     public KingDistance calculateKingTropism(final Player player) {
+        final Board board = player.getBoard();
         final int playerKingSquare = player.getPlayerKing().getPiecePosition();
-        final Collection<Move> enemyMoves = player.getOpponent().getLegalMoves();
-        Piece closestPiece = null;
+        final Color enemy = player.getOpponent().getColor();
         int closestDistance = Integer.MAX_VALUE;
-        for(final Move move : enemyMoves) {
-            final int currentDistance = calculateChebyshevDistance(playerKingSquare, move.getDestinationCoordinate());
-            if(currentDistance < closestDistance) {
-                closestDistance = currentDistance;
-                closestPiece = move.getMovedPiece();
+        for (long attacked = board.getAttackedTiles(enemy); attacked != 0; attacked &= attacked - 1) {
+            closestDistance = Math.min(closestDistance,
+                    calculateChebyshevDistance(playerKingSquare, Long.numberOfTrailingZeros(attacked)));
+        }
+        for (final Piece piece : player.getOpponent().getActivePieces()) {
+            final long attacks = BitboardUtils.pieceAttacks(enemy, piece.getPieceType(), piece.getPiecePosition(),
+                    board.getOccupancy());
+            for (long attacked = attacks; attacked != 0; attacked &= attacked - 1) {
+                if (calculateChebyshevDistance(playerKingSquare, Long.numberOfTrailingZeros(attacked)) == closestDistance) {
+                    return new KingDistance(piece, closestDistance);
+                }
             }
         }
-        return new KingDistance(closestPiece, closestDistance);
+        throw new RuntimeException("should not reach here!");
     }
 
     private int calculateChebyshevDistance(final int kingTileId,
@@ -66,45 +57,11 @@ public final class KingSafetyAnalyzer {
     }
 
     private static int getFile(final int coordinate) {
-        if(BoardUtils.INSTANCE.FIRST_COLUMN.get(coordinate)) {
-            return 1;
-        } else if(BoardUtils.INSTANCE.SECOND_COLUMN.get(coordinate)) {
-            return 2;
-        } else if(BoardUtils.INSTANCE.THIRD_COLUMN.get(coordinate)) {
-            return 3;
-        } else if(BoardUtils.INSTANCE.FOURTH_COLUMN.get(coordinate)) {
-            return 4;
-        } else if(BoardUtils.INSTANCE.FIFTH_COLUMN.get(coordinate)) {
-            return 5;
-        } else if(BoardUtils.INSTANCE.SIXTH_COLUMN.get(coordinate)) {
-            return 6;
-        } else if(BoardUtils.INSTANCE.SEVENTH_COLUMN.get(coordinate)) {
-            return 7;
-        } else if(BoardUtils.INSTANCE.EIGHTH_COLUMN.get(coordinate)) {
-            return 8;
-        }
-        throw new RuntimeException("should not reach here!");
+        return BoardUtils.getColumn(coordinate) + 1;
     }
 
     private static int getRank(final int coordinate) {
-        if(BoardUtils.INSTANCE.FIRST_ROW.get(coordinate)) {
-            return 1;
-        } else if(BoardUtils.INSTANCE.SECOND_ROW.get(coordinate)) {
-            return 2;
-        } else if(BoardUtils.INSTANCE.THIRD_ROW.get(coordinate)) {
-            return 3;
-        } else if(BoardUtils.INSTANCE.FOURTH_ROW.get(coordinate)) {
-            return 4;
-        } else if(BoardUtils.INSTANCE.FIFTH_ROW.get(coordinate)) {
-            return 5;
-        } else if(BoardUtils.INSTANCE.SIXTH_ROW.get(coordinate)) {
-            return 6;
-        } else if(BoardUtils.INSTANCE.SEVENTH_ROW.get(coordinate)) {
-            return 7;
-        } else if(BoardUtils.INSTANCE.EIGHTH_ROW.get(coordinate)) {
-            return 8;
-        }
-        throw new RuntimeException("should not reach here!");
+        return BoardUtils.getRow(coordinate) + 1;
     }
 
     static class KingDistance {
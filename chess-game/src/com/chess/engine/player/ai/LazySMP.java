@@ -0,0 +1,148 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveUtils;
+import com.chess.engine.board.MutableBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.chess.engine.board.Move.MoveFactory;
+
+// lazy SMP: every thread runs its own iterative deepening search of the same root position on its own
+// MutableBoard, and the only thing they share is the transposition table. Helper threads search the root
+// moves in a rotated order and every other one a ply deeper, so they fill the table with results the main
+// thread then finds instead of searching. The main thread's move is played, helpers are stopped once it is done
+public class LazySMP extends Observable implements MoveStrategy {
+
+    private final TranspositionTable transpositionTable;
+    private final int searchDepth;
+    private final int numThreads;
+    private long boardsEvaluated;
+
+    public LazySMP(final int searchDepth,
+                   final int numThreads) {
+        this(searchDepth, numThreads, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    public LazySMP(final int searchDepth,
+                   final int numThreads,
+                   final TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        this.searchDepth = searchDepth;
+        this.numThreads = Math.max(1, numThreads);
+        this.boardsEvaluated = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "LazySMP";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth +
+                           " on " + this.numThreads + " threads");
+        final List<Move> rootMoves = new ArrayList<>();
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            if (board.currentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                rootMoves.add(move);
+            }
+        }
+        if (rootMoves.isEmpty()) {
+            return MoveFactory.getNullMove();
+        }
+        this.transpositionTable.newSearch();
+        final AtomicBoolean stopSearch = new AtomicBoolean(false);
+        final StockAlphaBeta[] workers = new StockAlphaBeta[this.numThreads];
+        final Thread[] helpers = new Thread[this.numThreads - 1];
+        for (int i = 1; i < this.numThreads; i++) {
+            final int helperIndex = i;
+            workers[i] = new StockAlphaBeta(this.searchDepth + (i % 2), this.transpositionTable, stopSearch);
+            helpers[i - 1] = new Thread(() -> {
+                try {
+                    search(workers[helperIndex], board, rootMoves, this.searchDepth + (helperIndex % 2), helperIndex);
+                } catch (final SearchAbortedException e) {
+                    //the main thread has finished, nothing this helper found is needed any more
+                }
+            }, toString() + " helper " + i);
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+        workers[0] = new StockAlphaBeta(this.searchDepth, this.transpositionTable, stopSearch);
+        final Move bestMove = search(workers[0], board, rootMoves, this.searchDepth, 0);
+        stopSearch.set(true);
+        for (final Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.boardsEvaluated = 0;
+        for (final StockAlphaBeta worker : workers) {
+            this.boardsEvaluated += worker.getNumBoardsEvaluated();
+        }
+        final long executionTime = System.currentTimeMillis() - startTime;
+        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +this.boardsEvaluated+
+                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
+                bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)));
+        setChanged();
+        notifyObservers(result);
+        return bestMove;
+    }
+
+    private Move search(final StockAlphaBeta worker,
+                        final Board board,
+                        final List<Move> rootMoves,
+                        final int depth,
+                        final int threadIndex) {
+        final MutableBoard searchBoard = new MutableBoard(board);
+        final boolean isWhite = board.currentPlayer().getColor().isWhite();
+        final int numMoves = rootMoves.size();
+        Move bestMove = rootMoves.get(threadIndex % numMoves);
+        for (int currentDepth = 1; currentDepth <= depth; currentDepth++) {
+            final long subTimeStart = System.currentTimeMillis();
+            int highestSeenValue = Integer.MIN_VALUE;
+            int lowestSeenValue = Integer.MAX_VALUE;
+            Move iterationBestMove = bestMove;
+            //the best move so far goes first, the rest in an order that differs from thread to thread
+            for (int i = -1; i < numMoves; i++) {
+                final Move move = i == -1 ? bestMove : rootMoves.get((i + threadIndex) % numMoves);
+                if (i != -1 && move.equals(bestMove)) {
+                    continue;
+                }
+                searchBoard.makeMove(MoveUtils.pack(move));
+                final int currentValue = worker.searchRootMove(searchBoard, currentDepth - 1, highestSeenValue, lowestSeenValue);
+                searchBoard.unmakeMove();
+                if (isWhite && currentValue > highestSeenValue) {
+                    highestSeenValue = currentValue;
+                    iterationBestMove = move;
+                } else if (!isWhite && currentValue < lowestSeenValue) {
+                    lowestSeenValue = currentValue;
+                    iterationBestMove = move;
+                }
+            }
+            bestMove = iterationBestMove;
+            if (threadIndex == 0) {
+                final String s = "\t" + toString() + " bestMove = " + bestMove + " Depth = " + currentDepth +
+                                 " took " + (System.currentTimeMillis() - subTimeStart) + " ms";
+                System.out.println(s);
+                setChanged();
+                notifyObservers(s);
+            }
+        }
+        return bestMove;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MutableBoard;
+
+// a MovePicker over the Moves of a Board based search node. A search keeps one for each depth and fills it
+// again at every node there, so ordering the moves of a node allocates nothing
+final class LegalMovePicker {
+
+    private final Move[] moves;
+    private final MovePicker picker;
+    private int size;
+
+    LegalMovePicker() {
+        this.moves = new Move[MutableBoard.MAX_MOVES];
+        this.picker = new MovePicker(MutableBoard.MAX_MOVES);
+        this.size = 0;
+    }
+
+    void clear() {
+        this.picker.clear();
+        this.size = 0;
+    }
+
+    void add(final Move move,
+             final int score) {
+        this.moves[this.size] = move;
+        this.picker.add(this.size, score);
+        this.size++;
+    }
+
+    boolean hasNext() {
+        return this.picker.hasNext();
+    }
+
+    //the highest scored move left, the first of them in the order they were added on a tie
+    Move next() {
+        return this.moves[this.picker.next()];
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Move;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// hands out moves best first without sorting them up front. Every move is scored into an int[] once, and
+// each call selects the best of the moves not handed out yet, so a node that cuts off after a move or two
+// never pays for ordering the rest. The moves are ints, either packed moves or indices into a list of Moves
+final class MovePicker {
+
+    private final int[] moves;
+    private final int[] scores;
+    private int size;
+    private int picked;
+
+    //picks from the first size entries of moves, which it reorders as it goes
+    MovePicker(final int[] moves,
+               final int[] scores,
+               final int size) {
+        this.moves = moves;
+        this.scores = scores;
+        this.size = size;
+        this.picked = 0;
+    }
+
+    //an empty picker with buffers of its own, for a search to reuse at one ply
+    MovePicker(final int capacity) {
+        this(new int[capacity], new int[capacity], 0);
+    }
+
+    //picks indices into moves
+    static MovePicker of(final List<Move> moves,
+                         final ToIntFunction<Move> scorer) {
+        final int[] indices = new int[moves.size()];
+        final int[] scores = new int[moves.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+            scores[i] = scorer.applyAsInt(moves.get(i));
+        }
+        return new MovePicker(indices, scores, indices.length);
+    }
+
+    //the picker's own move buffer, to generate into before adding the moves back with their scores
+    int[] getMoves() {
+        return this.moves;
+    }
+
+    void clear() {
+        this.size = 0;
+        this.picked = 0;
+    }
+
+    //adding while reading the moves back out of getMoves() is fine, as the entry written is never past the one read
+    void add(final int move,
+             final int score) {
+        this.moves[this.size] = move;
+        this.scores[this.size] = score;
+        this.size++;
+    }
+
+    boolean hasNext() {
+        return this.picked < this.size;
+    }
+
+    //the highest scored move left, the first of them in the original order on a tie
+    int next() {
+        int best = this.picked;
+        for (int i = this.picked + 1; i < this.size; i++) {
+            if (this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+        final int move = this.moves[best];
+        final int score = this.scores[best];
+        //shift rather than swap, so the moves left keep their order
+        for (int i = best; i > this.picked; i--) {
+            this.moves[i] = this.moves[i - 1];
+            this.scores[i] = this.scores[i - 1];
+        }
+        this.moves[this.picked] = move;
+        this.scores[this.picked] = score;
+        this.picked++;
+        return move;
+    }
+
+}
@@ -33,6 +33,11 @@ public final class PawnStructureAnalyzer {
         return calculatePawnColumnStack(pawnsOnColumnTable) + calculateIsolatedPawnPenalty(pawnsOnColumnTable);
     }
 
+    public int pawnStructureScore(final long pawns) {
+        final int[] pawnsOnColumnTable = createPawnColumnTable(pawns);
+        return calculatePawnColumnStack(pawnsOnColumnTable) + calculateIsolatedPawnPenalty(pawnsOnColumnTable);
+    }
+
     private static Collection<Piece> calculatePlayerPawns(final Player player) {
         return player.getActivePieces().stream().filter(piece -> piece.getPieceType() == Piece.PieceType.PAWN).collect(Collectors.toList());
     }
@@ -71,4 +76,14 @@ public final class PawnStructureAnalyzer {
         return table;
     }
 
+    private static int[] createPawnColumnTable(final long pawns) {
+        final int[] table = new int[8];
+        long remaining = pawns;
+        while(remaining != 0) {
+            table[Long.numberOfTrailingZeros(remaining) % 8]++;
+            remaining &= remaining - 1;
+        }
+        return table;
+    }
+
 }
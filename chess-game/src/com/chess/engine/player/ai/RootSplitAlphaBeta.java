@@ -0,0 +1,172 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveUtils;
+import com.chess.engine.board.MutableBoard;
+import com.chess.engine.player.ai.StockAlphaBeta.MoveSorter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.chess.engine.board.Move.MoveFactory;
+
+// StockAlphaBeta with its root loop split across a fork join pool. The first root move is searched
+// serially to establish a bound, then every other root move becomes a task searched with the best
+// window known when it starts. The window tightens atomically as results come in
+public class RootSplitAlphaBeta extends Observable implements MoveStrategy {
+
+    private final TranspositionTable transpositionTable;
+    private final ForkJoinPool pool;
+    private final int searchDepth;
+    private long boardsEvaluated;
+
+    public RootSplitAlphaBeta(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB), ForkJoinPool.commonPool());
+    }
+
+    public RootSplitAlphaBeta(final int searchDepth,
+                              final TranspositionTable transpositionTable,
+                              final ForkJoinPool pool) {
+        this.transpositionTable = transpositionTable;
+        this.pool = pool;
+        this.searchDepth = searchDepth;
+        this.boardsEvaluated = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RootSplitAB";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth +
+                           " on " + this.pool.getParallelism() + " threads");
+        final List<Move> rootMoves = new ArrayList<>();
+        for (final Move move : MoveSorter.EXPENSIVE.sort(board.currentPlayer().getLegalMoves())) {
+            if (board.currentPlayer().makeMove(move).getMoveStatus().isDone()) {
+                rootMoves.add(move);
+            }
+        }
+        if (rootMoves.isEmpty()) {
+            return MoveFactory.getNullMove();
+        }
+        this.transpositionTable.newSearch();
+        final RootSearch rootSearch = new RootSearch(board, rootMoves.size());
+        //the first move is searched on this thread, its score is the bound every other task starts from
+        new RootMoveTask(rootSearch, rootMoves.get(0), 0).invoke();
+        final List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 1; i < rootMoves.size(); i++) {
+            tasks.add(new RootMoveTask(rootSearch, rootMoves.get(i), i));
+        }
+        this.pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        final Move bestMove = rootSearch.getBestMove();
+        this.boardsEvaluated = rootSearch.boardsEvaluated.get();
+        final long executionTime = System.currentTimeMillis() - startTime;
+        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +this.boardsEvaluated+
+                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
+                bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)));
+        setChanged();
+        notifyObservers(result);
+        return bestMove;
+    }
+
+    //the state the root tasks share
+    private class RootSearch {
+
+        final Board board;
+        final boolean isWhite;
+        final int numMoves;
+        final AtomicInteger highestSeenValue;
+        final AtomicInteger lowestSeenValue;
+        final AtomicLong boardsEvaluated;
+        //never set, root split searches always run to completion
+        final AtomicBoolean stopSearch;
+        private Move bestMove;
+        private int bestValue;
+
+        RootSearch(final Board board,
+                   final int numMoves) {
+            this.board = board;
+            this.isWhite = board.currentPlayer().getColor().isWhite();
+            this.numMoves = numMoves;
+            this.highestSeenValue = new AtomicInteger(Integer.MIN_VALUE);
+            this.lowestSeenValue = new AtomicInteger(Integer.MAX_VALUE);
+            this.boardsEvaluated = new AtomicLong(0);
+            this.stopSearch = new AtomicBoolean(false);
+            this.bestMove = MoveFactory.getNullMove();
+            this.bestValue = this.isWhite ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+
+        //only a strictly better score replaces the best move, a score equal to the window it was searched
+        //with only says the move is no better than that
+        synchronized void offer(final Move move,
+                                final int value) {
+            if (this.isWhite ? value > this.bestValue : value < this.bestValue) {
+                this.bestMove = move;
+                this.bestValue = value;
+            }
+            if (this.isWhite) {
+                this.highestSeenValue.accumulateAndGet(value, Math::max);
+            } else {
+                this.lowestSeenValue.accumulateAndGet(value, Math::min);
+            }
+        }
+
+        synchronized Move getBestMove() {
+            return this.bestMove;
+        }
+
+    }
+
+    private class RootMoveTask extends RecursiveAction {
+
+        private final RootSearch rootSearch;
+        private final Move move;
+        private final int index;
+
+        RootMoveTask(final RootSearch rootSearch,
+                     final Move move,
+                     final int index) {
+            this.rootSearch = rootSearch;
+            this.move = move;
+            this.index = index;
+        }
+
+        @Override
+        protected void compute() {
+            final long candidateMoveStartTime = System.nanoTime();
+            final StockAlphaBeta worker = new StockAlphaBeta(searchDepth, transpositionTable, this.rootSearch.stopSearch);
+            final MutableBoard searchBoard = new MutableBoard(this.rootSearch.board);
+            searchBoard.makeMove(MoveUtils.pack(this.move));
+            final int currentValue = worker.searchRootMove(searchBoard, searchDepth - 1,
+                    this.rootSearch.highestSeenValue.get(), this.rootSearch.lowestSeenValue.get());
+            this.rootSearch.boardsEvaluated.addAndGet(worker.getNumBoardsEvaluated());
+            this.rootSearch.offer(this.move, currentValue);
+            System.out.println("\t" + RootSplitAlphaBeta.this + "(" +searchDepth+ "), m: (" +(this.index + 1)+ "/" +
+                               this.rootSearch.numMoves+ ") " + this.move + " scored " + currentValue + ", t: " +
+                               (System.nanoTime() - candidateMoveStartTime) / 1000000 + " ms");
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.chess.engine.player.ai;
+
+// thrown from deep inside a search to unwind it once it has been told to stop, the search position
+// it was working on is left half made and must be thrown away. There is one stackless instance,
+// since unwinding a search is routine and filling in a stack trace for it would only cost time
+final class SearchAbortedException extends RuntimeException {
+
+    static final SearchAbortedException INSTANCE = new SearchAbortedException();
+
+    private SearchAbortedException() {
+        super("search aborted", null, false, false);
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+// plays the opening of a game with a baseline search against itself and searches every position with both
+// the baseline and a candidate search, printing boards evaluated and time taken side by side.
+// usage: SearchComparison [ybwc|windows] [depth] [plies] [threads]
+public final class SearchComparison {
+
+    private SearchComparison() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    enum Comparison {
+
+        //serial alpha beta against the young brothers wait parallel search of the same tree
+        YBWC {
+            @Override
+            MoveStrategy baseline(final int depth,
+                                  final ForkJoinPool pool) {
+                return new AlphaBetaWithMoveOrdering(depth, 0);
+            }
+
+            @Override
+            MoveStrategy candidate(final int depth,
+                                   final ForkJoinPool pool) {
+                return new YoungBrothersWaitAlphaBeta(depth, pool);
+            }
+        },
+        //iterative deepening with full windows against aspiration windows and principal variation search
+        WINDOWS {
+            @Override
+            MoveStrategy baseline(final int depth,
+                                  final ForkJoinPool pool) {
+                return new IterativeDeepening(depth, false);
+            }
+
+            @Override
+            MoveStrategy candidate(final int depth,
+                                   final ForkJoinPool pool) {
+                return new IterativeDeepening(depth, true);
+            }
+        };
+
+        abstract MoveStrategy baseline(int depth, ForkJoinPool pool);
+
+        abstract MoveStrategy candidate(int depth, ForkJoinPool pool);
+    }
+
+    public static void main(final String[] args) {
+        final Comparison comparison = args.length > 0 ? Comparison.valueOf(args[0].toUpperCase()) : Comparison.YBWC;
+        final int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final int plies = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        final PrintStream out = System.out;
+        final PrintStream silent = new PrintStream(new OutputStream() {
+            @Override
+            public void write(final int b) {
+            }
+        });
+        out.printf("%s, depth = %d, threads = %d%n", comparison, depth, threads);
+        out.printf("%-4s %-8s %12s %10s %-8s %12s %10s %8s %8s%n",
+                "ply", "baseline", "boards", "ms", "candidate", "boards", "ms", "boards%", "speedup");
+        long baselineBoards = 0;
+        long baselineTime = 0;
+        long candidateBoards = 0;
+        long candidateTime = 0;
+        Board board = Board.createStandardBoard();
+        for (int ply = 1; ply <= plies && !BoardUtils.isEndGame(board); ply++) {
+            final MoveStrategy baseline = comparison.baseline(depth, pool);
+            final MoveStrategy candidate = comparison.candidate(depth, pool);
+            System.setOut(silent);
+            final long baselineStart = System.currentTimeMillis();
+            final Move baselineMove = baseline.execute(board);
+            final long baselineMillis = System.currentTimeMillis() - baselineStart;
+            final long candidateStart = System.currentTimeMillis();
+            final Move candidateMove = candidate.execute(board);
+            final long candidateMillis = System.currentTimeMillis() - candidateStart;
+            System.setOut(out);
+            printRow(out, String.valueOf(ply), baselineMove, baseline.getNumBoardsEvaluated(), baselineMillis,
+                     candidateMove, candidate.getNumBoardsEvaluated(), candidateMillis);
+            baselineBoards += baseline.getNumBoardsEvaluated();
+            baselineTime += baselineMillis;
+            candidateBoards += candidate.getNumBoardsEvaluated();
+            candidateTime += candidateMillis;
+            board = board.currentPlayer().makeMove(baselineMove).getToBoard();
+        }
+        printRow(out, "all", "", baselineBoards, baselineTime, "", candidateBoards, candidateTime);
+        pool.shutdown();
+    }
+
+    private static void printRow(final PrintStream out,
+                                 final String ply,
+                                 final Object baselineMove,
+                                 final long baselineBoards,
+                                 final long baselineMillis,
+                                 final Object candidateMove,
+                                 final long candidateBoards,
+                                 final long candidateMillis) {
+        out.printf("%-4s %-8s %12d %10d %-8s %12d %10d %8.1f %8.2f%n", ply,
+                baselineMove, baselineBoards, baselineMillis, candidateMove, candidateBoards, candidateMillis,
+                100 * (double) candidateBoards / Math.max(1, baselineBoards),
+                (double) baselineMillis / Math.max(1, candidateMillis));
+    }
+
+}
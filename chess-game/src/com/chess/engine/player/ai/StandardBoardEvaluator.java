@@ -1,8 +1,12 @@
 package com.chess.engine.player.ai;
 
+import com.chess.engine.Color;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveUtils;
+import com.chess.engine.board.MutableBoard;
 import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
 import com.chess.engine.player.Player;
 import com.chess.engine.player.ai.KingSafetyAnalyzer.KingDistance;
 import com.google.common.annotations.VisibleForTesting;
@@ -27,12 +31,29 @@ public final class StandardBoardEvaluator
         return INSTANCE;
     }
 
+    //a position drawn by repetition or the fifty move rule is worth DRAW_SCORE, unless the last move mated
     @Override
     public int evaluate(final Board board,
                         final int depth) {
+        if (board.isThreefoldRepetition() ||
+            (board.isFiftyMoveRule() && !board.currentPlayer().isInCheckMate())) {
+            return DRAW_SCORE;
+        }
         return score(board.whitePlayer(), depth) - score(board.blackPlayer(), depth);
     }
 
+    //the same terms as evaluate(Board, int), computed straight from the search position
+    @Override
+    public int evaluate(final MutableBoard board,
+                        final int depth) {
+        //white's moves then black's, in the board's own scratch buffer
+        final int[] moves = board.getMoveBuffer();
+        final int whiteEnd = board.generateMoves(Color.WHITE, moves, 0);
+        final int blackEnd = board.generateMoves(Color.BLACK, moves, whiteEnd);
+        return score(board, Color.WHITE, whiteEnd, blackEnd - whiteEnd, attacks(moves, 0, whiteEnd), depth) -
+               score(board, Color.BLACK, blackEnd - whiteEnd, whiteEnd, attacks(moves, whiteEnd, blackEnd), depth);
+    }
+
     public String evaluationDetails(final Board board, final int depth) {
         return
                ("White Mobility : " + mobility(board.whitePlayer()) + "\n") +
@@ -64,6 +85,20 @@ public final class StandardBoardEvaluator
                pawnStructure(player);
     }
 
+    private static int score(final MutableBoard board,
+                             final Color color,
+                             final int moveCount,
+                             final int opponentMoveCount,
+                             final int attacks,
+                             final int depth) {
+        return mobility(moveCount, opponentMoveCount) +
+               kingThreats(board, color, depth) +
+               attacks +
+               castle(board, color) +
+               pieceEvaluations(board, color) +
+               pawnStructure(board, color);
+    }
+
     private static int attacks(final Player player) {
         int attackScore = 0;
         for(final Move move : player.getLegalMoves()) {
@@ -78,6 +113,23 @@ public final class StandardBoardEvaluator
         return attackScore * ATTACK_MULTIPLIER;
     }
 
+    private static int attacks(final int[] moves,
+                               final int start,
+                               final int end) {
+        int attackScore = 0;
+        for(int i = start; i < end; i++) {
+            final int move = moves[i];
+            if(MoveUtils.isCapture(move)) {
+                final PieceType movedPiece = MoveUtils.getMovedPieceType(move);
+                final PieceType attackedPiece = MoveUtils.getCapturedPieceType(move);
+                if(movedPiece.getPieceValue() <= attackedPiece.getPieceValue()) {
+                    attackScore++;
+                }
+            }
+        }
+        return attackScore * ATTACK_MULTIPLIER;
+    }
+
     private static int pieceEvaluations(final Player player) {
         int pieceValuationScore = 0;
         int numBishops = 0;
@@ -90,6 +142,38 @@ public final class StandardBoardEvaluator
         return pieceValuationScore + (numBishops == 2 ? TWO_BISHOPS_BONUS : 0);
     }
 
+    private static int pieceEvaluations(final MutableBoard board,
+                                        final Color color) {
+        int pieceValuationScore = 0;
+        long pieces = board.getOccupancy(color);
+        while(pieces != 0) {
+            final int coordinate = Long.numberOfTrailingZeros(pieces);
+            final PieceType pieceType = board.getPieceType(coordinate);
+            pieceValuationScore += pieceType.getPieceValue() + locationBonus(color, pieceType, coordinate);
+            pieces &= pieces - 1;
+        }
+        return pieceValuationScore + (Long.bitCount(board.getPieceBitboard(color, BISHOP)) == 2 ? TWO_BISHOPS_BONUS : 0);
+    }
+
+    private static int locationBonus(final Color color,
+                                     final PieceType pieceType,
+                                     final int coordinate) {
+        switch(pieceType) {
+            case PAWN:
+                return color.pawnBonus(coordinate);
+            case KNIGHT:
+                return color.knightBonus(coordinate);
+            case BISHOP:
+                return color.bishopBonus(coordinate);
+            case ROOK:
+                return color.rookBonus(coordinate);
+            case QUEEN:
+                return color.queenBonus(coordinate);
+            default:
+                return color.kingBonus(coordinate);
+        }
+    }
+
     private static int mobility(final Player player) {
         return MOBILITY_MULTIPLIER * mobilityRatio(player);
     }
@@ -98,6 +182,11 @@ public final class StandardBoardEvaluator
         return (int)((player.getLegalMoves().size() * 10.0f) / player.getOpponent().getLegalMoves().size());
     }
 
+    private static int mobility(final int moveCount,
+                                final int opponentMoveCount) {
+        return MOBILITY_MULTIPLIER * (int)((moveCount * 10.0f) / opponentMoveCount);
+    }
+
     private static int kingThreats(final Player player,
                                    final int depth) {
         return player.getOpponent().isInCheckMate() ? CHECK_MATE_BONUS  * depthBonus(depth) : check(player);
@@ -107,6 +196,17 @@ public final class StandardBoardEvaluator
         return player.getOpponent().isInCheck() ? CHECK_BONUS : 0;
     }
 
+    private static int kingThreats(final MutableBoard board,
+                                   final Color color,
+                                   final int depth) {
+        final Color opponent = color.opposite();
+        if(!board.isInCheck(opponent)) {
+            return 0;
+        }
+        return opponent == board.getSideToMove() && !board.hasLegalMove() ?
+                CHECK_MATE_BONUS * depthBonus(depth) : CHECK_BONUS;
+    }
+
     private static int depthBonus(final int depth) {
         return depth == 0 ? 1 : 100 * depth;
     }
@@ -115,10 +215,20 @@ public final class StandardBoardEvaluator
         return player.isCastled() ? CASTLE_BONUS : 0;
     }
 
+    private static int castle(final MutableBoard board,
+                              final Color color) {
+        return board.isCastled(color) ? CASTLE_BONUS : 0;
+    }
+
     private static int pawnStructure(final Player player) {
         return PawnStructureAnalyzer.get().pawnStructureScore(player);
     }
 
+    private static int pawnStructure(final MutableBoard board,
+                                     final Color color) {
+        return PawnStructureAnalyzer.get().pawnStructureScore(board.getPieceBitboard(color, PieceType.PAWN));
+    }
+
     private static int kingSafety(final Player player) {
         final KingDistance kingDistance = KingSafetyAnalyzer.get().calculateKingTropism(player);
         return ((kingDistance.getEnemyPiece().getPieceValue() / 100) * kingDistance.getDistance());
@@ -4,44 +4,56 @@ import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
 import com.chess.engine.board.MoveTransition;
+import com.chess.engine.board.MoveUtils;
+import com.chess.engine.board.MutableBoard;
+import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.Player;
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.List;
 import java.util.Observable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.chess.engine.board.BoardUtils.mvvlva;
+import static com.chess.engine.board.BoardUtils.see;
 import static com.chess.engine.board.Move.MoveFactory;
 
 public class StockAlphaBeta extends Observable implements MoveStrategy {
 
     private final BoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private final CutoffHistory cutoffHistory;
+    //one picker per ply, made the first time the search reaches that ply and reused after, so generating and
+    //ordering the moves of a node allocates nothing
+    private final MovePicker[] pickers;
+    private final AtomicBoolean stopSearch;
     private final int searchDepth;
     private long boardsEvaluated;
+    private long cutOffsProduced;
+    private long firstMoveCutOffs;
+    private MutableBoard searchBoard;
     private int quiescenceCount;
-    private static final int MAX_QUIESCENCE = 5000 * 5;
+    //above the ordering score of any quiet move
+    private static final int WINNING_CAPTURE = Piece.PieceType.KING.getPieceValue() * 100;
 
-    private enum MoveSorter {
+    enum MoveSorter {
 
-        STANDARD {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>) (move1, move2) -> ComparisonChain.start()
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(mvvlva(move2), mvvlva(move1))
-                        .result()).immutableSortedCopy(moves);
-            }
-        },
+        //checks, then castles, then by exchangeOrder. Every move is scored once up front, rather than
+        //in every comparison of the sort
         EXPENSIVE {
             @Override
             Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>) (move1, move2) -> ComparisonChain.start()
-                        .compareTrueFirst(BoardUtils.kingThreat(move1), BoardUtils.kingThreat(move2))
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(mvvlva(move2), mvvlva(move1))
-                        .result()).immutableSortedCopy(moves);
+                final List<Move> candidates = new ArrayList<>(moves);
+                final MovePicker picker = MovePicker.of(candidates, move ->
+                        (BoardUtils.givesCheck(move) ? 1 << 30 : 0) +
+                        (move.isCastlingMove() ? 1 << 29 : 0) +
+                        exchangeOrder(move));
+                final List<Move> sorted = new ArrayList<>(candidates.size());
+                while (picker.hasNext()) {
+                    sorted.add(candidates.get(picker.next()));
+                }
+                return sorted;
             }
         };
 
@@ -50,9 +62,28 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
 
 
     public StockAlphaBeta(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    //pass the same table to the strategy for every move of a game so each search starts warm
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable) {
+        this(searchDepth, transpositionTable, new AtomicBoolean(false));
+    }
+
+    //a search worker for a parallel strategy, it gives up with a SearchAbortedException once stopSearch is set
+    StockAlphaBeta(final int searchDepth,
+                   final TranspositionTable transpositionTable,
+                   final AtomicBoolean stopSearch) {
         this.evaluator = StandardBoardEvaluator.get();
+        this.transpositionTable = transpositionTable;
+        this.cutoffHistory = new CutoffHistory();
+        this.pickers = new MovePicker[CutoffHistory.MAX_PLY];
+        this.stopSearch = stopSearch;
         this.searchDepth = searchDepth;
         this.boardsEvaluated = 0;
+        this.cutOffsProduced = 0;
+        this.firstMoveCutOffs = 0;
         this.quiescenceCount = 0;
     }
 
@@ -77,15 +108,20 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
         System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
         int moveCounter = 1;
         int numMoves = board.currentPlayer().getLegalMoves().size();
+        this.searchBoard = new MutableBoard(board);
+        this.transpositionTable.newSearch();
+        this.cutoffHistory.newSearch();
         for (final Move move : MoveSorter.EXPENSIVE.sort((board.currentPlayer().getLegalMoves()))) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             this.quiescenceCount = 0;
             final String s;
             if (moveTransition.getMoveStatus().isDone()) {
                 final long candidateMoveStartTime = System.nanoTime();
+                this.searchBoard.makeMove(MoveUtils.pack(move));
                 currentValue = currentPlayer.getColor().isWhite() ?
-                        min(moveTransition.getToBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue) :
-                        max(moveTransition.getToBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue);
+                        min(this.searchBoard, this.searchDepth - 1, highestSeenValue, lowestSeenValue) :
+                        max(this.searchBoard, this.searchDepth - 1, highestSeenValue, lowestSeenValue);
+                this.searchBoard.unmakeMove();
                 if (currentPlayer.getColor().isWhite() && currentValue > highestSeenValue) {
                     highestSeenValue = currentValue;
                     bestMove = move;
@@ -117,13 +153,25 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
         final long executionTime = System.currentTimeMillis() - startTime;
         final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +this.boardsEvaluated+
                 " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime));
-        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
-                bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f cutoffCount = %d first move cutoffs = %.1f%%\n",
+                board.currentPlayer(), bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)),
+                this.cutOffsProduced, 100 * ((double)this.firstMoveCutOffs/this.cutOffsProduced));
         setChanged();
         notifyObservers(result);
         return bestMove;
     }
 
+    //scores a root move that has already been made on the board, for strategies that run their own root loop
+    int searchRootMove(final MutableBoard board,
+                       final int depth,
+                       final int highest,
+                       final int lowest) {
+        this.quiescenceCount = 0;
+        return board.getSideToMove().isWhite() ?
+                max(board, depth, highest, lowest) :
+                min(board, depth, highest, lowest);
+    }
+
     private static String score(final Player currentPlayer,
                                 final int highestSeenValue,
                                 final int lowestSeenValue) {
@@ -136,70 +184,311 @@ public class StockAlphaBeta extends Observable implements MoveStrategy {
         throw new RuntimeException("bad bad boy!");
     }
 
-    private int max(final Board board,
+    private int max(final MutableBoard board,
                     final int depth,
                     final int highest,
                     final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
+        if (this.stopSearch.get()) {
+            throw SearchAbortedException.INSTANCE;
+        }
+        if (isDraw(board)) {
+            return Math.max(highest, Math.min(lowest, BoardEvaluator.DRAW_SCORE));
+        }
+        if (depth == 0) {
+            return quiescenceMax(board, highest, lowest);
+        }
+        final long key = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(key);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int storedScore = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return Math.max(highest, Math.min(lowest, storedScore));
+            } else if (bound == TranspositionTable.LOWER_BOUND && storedScore >= lowest) {
+                return lowest;
+            } else if (bound == TranspositionTable.UPPER_BOUND && storedScore <= highest) {
+                return highest;
+            }
         }
         int currentHighest = highest;
-        for (final Move move : MoveSorter.STANDARD.sort((board.currentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final Board toBoard = moveTransition.getToBoard();
-                currentHighest = Math.max(currentHighest, min(toBoard,
-                        calculateQuiescenceDepth(toBoard, depth), currentHighest, lowest));
+        int bestMove = MoveUtils.NULL_MOVE;
+        boolean hasLegalMove = false;
+        final MovePicker picker = pickMoves(board, TranspositionTable.getMove(entry));
+        while (picker.hasNext()) {
+            final int move = picker.next();
+            if (board.makeMove(move)) {
+                final boolean firstMove = !hasLegalMove;
+                hasLegalMove = true;
+                final int value = min(board, depth - 1, currentHighest, lowest);
+                board.unmakeMove();
+                if (value > currentHighest) {
+                    currentHighest = value;
+                    bestMove = move;
+                }
                 if (currentHighest >= lowest) {
+                    recordCutoff(board, move, depth, firstMove);
+                    this.transpositionTable.store(key, depth, TranspositionTable.LOWER_BOUND, lowest, move);
                     return lowest;
                 }
             }
         }
+        //checkmate or stalemate
+        if (!hasLegalMove) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(key, depth, currentHighest > highest ?
+                TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND, currentHighest, bestMove);
         return currentHighest;
     }
 
-    private int min(final Board board,
+    private int min(final MutableBoard board,
                     final int depth,
                     final int highest,
                     final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
+        if (this.stopSearch.get()) {
+            throw SearchAbortedException.INSTANCE;
+        }
+        if (isDraw(board)) {
+            return Math.max(highest, Math.min(lowest, BoardEvaluator.DRAW_SCORE));
+        }
+        if (depth == 0) {
+            return quiescenceMin(board, highest, lowest);
+        }
+        final long key = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(key);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int storedScore = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return Math.max(highest, Math.min(lowest, storedScore));
+            } else if (bound == TranspositionTable.LOWER_BOUND && storedScore >= lowest) {
+                return lowest;
+            } else if (bound == TranspositionTable.UPPER_BOUND && storedScore <= highest) {
+                return highest;
+            }
         }
         int currentLowest = lowest;
-        for (final Move move : MoveSorter.STANDARD.sort((board.currentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final Board toBoard = moveTransition.getToBoard();
-                currentLowest = Math.min(currentLowest, max(toBoard,
-                        calculateQuiescenceDepth(toBoard, depth), highest, currentLowest));
+        int bestMove = MoveUtils.NULL_MOVE;
+        boolean hasLegalMove = false;
+        final MovePicker picker = pickMoves(board, TranspositionTable.getMove(entry));
+        while (picker.hasNext()) {
+            final int move = picker.next();
+            if (board.makeMove(move)) {
+                final boolean firstMove = !hasLegalMove;
+                hasLegalMove = true;
+                final int value = max(board, depth - 1, highest, currentLowest);
+                board.unmakeMove();
+                if (value < currentLowest) {
+                    currentLowest = value;
+                    bestMove = move;
+                }
                 if (currentLowest <= highest) {
+                    recordCutoff(board, move, depth, firstMove);
+                    this.transpositionTable.store(key, depth, TranspositionTable.UPPER_BOUND, highest, move);
                     return highest;
                 }
             }
         }
+        //checkmate or stalemate
+        if (!hasLegalMove) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, depth);
+        }
+        this.transpositionTable.store(key, depth, currentLowest < lowest ?
+                TranspositionTable.EXACT : TranspositionTable.LOWER_BOUND, currentLowest, bestMove);
         return currentLowest;
     }
 
-    private int calculateQuiescenceDepth(final Board toBoard,
-                                         final int depth) {
-        if(depth == 1 && this.quiescenceCount < MAX_QUIESCENCE) {
-            int activityMeasure = 0;
-            if (toBoard.currentPlayer().isInCheck()) {
-                activityMeasure += 1;
+    //searches captures and queen promotions from the horizon until the position is quiet. The side to move
+    //can stand pat on the static evaluation instead of capturing, except in check, where every evasion is searched.
+    //Captures that lose material by static exchange are not searched
+    private int quiescenceMax(final MutableBoard board,
+                              final int highest,
+                              final int lowest) {
+        if (this.stopSearch.get()) {
+            throw SearchAbortedException.INSTANCE;
+        }
+        this.quiescenceCount++;
+        final boolean inCheck = board.isInCheck();
+        int currentHighest = highest;
+        if (!inCheck) {
+            this.boardsEvaluated++;
+            final int standPat = this.evaluator.evaluate(board, 0);
+            if (standPat >= lowest) {
+                return lowest;
+            }
+            currentHighest = Math.max(currentHighest, standPat);
+        }
+        boolean hasLegalMove = false;
+        final MovePicker picker = inCheck ? pickMoves(board, MoveUtils.NULL_MOVE) :
+                                            pickCaptures(board);
+        while (picker.hasNext()) {
+            final int move = picker.next();
+            if (board.makeMove(move)) {
+                hasLegalMove = true;
+                final int value = quiescenceMin(board, currentHighest, lowest);
+                board.unmakeMove();
+                currentHighest = Math.max(currentHighest, value);
+                if (currentHighest >= lowest) {
+                    return lowest;
+                }
+            }
+        }
+        //checkmate
+        if (inCheck && !hasLegalMove) {
+            this.boardsEvaluated++;
+            return Math.max(highest, Math.min(lowest, this.evaluator.evaluate(board, 0)));
+        }
+        return currentHighest;
+    }
+
+    private int quiescenceMin(final MutableBoard board,
+                              final int highest,
+                              final int lowest) {
+        if (this.stopSearch.get()) {
+            throw SearchAbortedException.INSTANCE;
+        }
+        this.quiescenceCount++;
+        final boolean inCheck = board.isInCheck();
+        int currentLowest = lowest;
+        if (!inCheck) {
+            this.boardsEvaluated++;
+            final int standPat = this.evaluator.evaluate(board, 0);
+            if (standPat <= highest) {
+                return highest;
             }
-            for(final Move move: BoardUtils.lastNMoves(toBoard, 2)) {
-                if(move.isAttack()) {
-                    activityMeasure += 1;
+            currentLowest = Math.min(currentLowest, standPat);
+        }
+        boolean hasLegalMove = false;
+        final MovePicker picker = inCheck ? pickMoves(board, MoveUtils.NULL_MOVE) :
+                                            pickCaptures(board);
+        while (picker.hasNext()) {
+            final int move = picker.next();
+            if (board.makeMove(move)) {
+                hasLegalMove = true;
+                final int value = quiescenceMax(board, highest, currentLowest);
+                board.unmakeMove();
+                currentLowest = Math.min(currentLowest, value);
+                if (currentLowest <= highest) {
+                    return highest;
                 }
             }
-            if(activityMeasure >= 2) {
-                this.quiescenceCount++;
-                return 2;
+        }
+        //checkmate
+        if (inCheck && !hasLegalMove) {
+            this.boardsEvaluated++;
+            return Math.max(highest, Math.min(lowest, this.evaluator.evaluate(board, 0)));
+        }
+        return currentLowest;
+    }
+
+    //a repetition, or fifty moves without a capture or pawn move that do not end in mate
+    private static boolean isDraw(final MutableBoard board) {
+        return board.isRepetition() ||
+               (board.isFiftyMoveRule() && (!board.isInCheck() || board.hasLegalMove()));
+    }
+
+    //captures that do not lose material by static exchange and queen promotions, promotions first, then the
+    //captures that win the most. A losing capture is left out, standing pat is never worse than making it
+    private MovePicker pickCaptures(final MutableBoard board) {
+        final MovePicker picker = pickerAt(board);
+        final int[] moves = picker.getMoves();
+        final int count = board.generateMoves(moves, 0);
+        picker.clear();
+        for (int i = 0; i < count; i++) {
+            final int move = moves[i];
+            final int score;
+            if (MoveUtils.isPromotion(move)) {
+                if (MoveUtils.getPromotionType(move) != Piece.PieceType.QUEEN) {
+                    continue;
+                }
+                score = Integer.MAX_VALUE;
+            } else if (board.isCapture(move)) {
+                score = see(board, move);
+                if (score < 0) {
+                    continue;
+                }
+            } else {
+                continue;
             }
+            picker.add(move, score);
+        }
+        return picker;
+    }
+
+    //winning and even captures by what they win, then quiet moves by mvvlva, then losing captures
+    private static int exchangeOrder(final MutableBoard board,
+                                     final int move) {
+        if (board.isCapture(move)) {
+            final int exchange = see(board, move);
+            return exchange >= 0 ? WINNING_CAPTURE + exchange : exchange;
+        }
+        return mvvlva(move);
+    }
+
+    private static int exchangeOrder(final Move move) {
+        if (move.isAttack()) {
+            final int exchange = see(move);
+            return exchange >= 0 ? WINNING_CAPTURE + exchange : exchange;
+        }
+        return mvvlva(move);
+    }
+
+    private void recordCutoff(final MutableBoard board,
+                              final int move,
+                              final int depth,
+                              final boolean firstMove) {
+        this.cutOffsProduced++;
+        if (firstMove) {
+            this.firstMoveCutOffs++;
+        }
+        if (!board.isCapture(move) && !MoveUtils.isPromotion(move)) {
+            this.cutoffHistory.recordCutoff(MoveUtils.getCurrentCoordinate(move), MoveUtils.getDestinationCoordinate(move),
+                    board.getPly(), depth);
+        }
+    }
+
+    //winning captures, then killers, then the other quiet moves by history with mvvlva breaking ties, then losing captures
+    private int orderingScore(final MutableBoard board,
+                              final int move) {
+        if (board.isCapture(move)) {
+            return exchangeOrder(board, move);
+        }
+        final int from = MoveUtils.getCurrentCoordinate(move);
+        final int to = MoveUtils.getDestinationCoordinate(move);
+        final int killerRank = this.cutoffHistory.killerRank(from, to, board.getPly());
+        if (killerRank > 0) {
+            return WINNING_CAPTURE - 3 + killerRank;
+        }
+        return this.cutoffHistory.historyScore(from, to) + mvvlva(move);
+    }
+
+    //the transposition table move first, then castles, then by orderingScore, keeping the generated order for ties
+    private MovePicker pickMoves(final MutableBoard board,
+                                 final int tableMove) {
+        final MovePicker picker = pickerAt(board);
+        final int[] moves = picker.getMoves();
+        final int count = board.generateMoves(moves, 0);
+        picker.clear();
+        for (int i = 0; i < count; i++) {
+            final int move = moves[i];
+            picker.add(move, move == tableMove ? Integer.MAX_VALUE :
+                             MoveUtils.isCastlingMove(move) ? Integer.MAX_VALUE - 1 : orderingScore(board, move));
+        }
+        return picker;
+    }
+
+    //the picker for the board's ply, or a new one past the deepest ply kept
+    private MovePicker pickerAt(final MutableBoard board) {
+        final int ply = board.getPly();
+        if (ply >= this.pickers.length) {
+            return new MovePicker(MutableBoard.MAX_MOVES);
+        }
+        if (this.pickers[ply] == null) {
+            this.pickers[ply] = new MovePicker(MutableBoard.MAX_MOVES);
         }
-        return depth - 1;
+        return this.pickers[ply];
     }
 
     private static String calculateTimeTaken(final long start, final long end) {
@@ -0,0 +1,45 @@
+package com.chess.engine.player.ai;
+
+// how long a time controlled search may think about one move. Past the soft limit no new iteration
+// is started, since the next depth usually takes several times as long as the last one did, and at
+// the hard limit the iteration in progress is abandoned
+public final class TimeControl {
+
+    //the share of the remaining clock a move is given when the game has no move count
+    private static final int MOVES_TO_GO = 30;
+
+    private final long softLimitMillis;
+    private final long hardLimitMillis;
+
+    private TimeControl(final long softLimitMillis,
+                        final long hardLimitMillis) {
+        this.softLimitMillis = softLimitMillis;
+        this.hardLimitMillis = hardLimitMillis;
+    }
+
+    public static TimeControl perMove(final long budgetMillis) {
+        final long budget = Math.max(1, budgetMillis);
+        return new TimeControl(budget / 2, budget);
+    }
+
+    public static TimeControl clock(final long remainingMillis,
+                                    final long incrementMillis) {
+        //never spend more than half of what is left, however large the increment
+        final long budget = Math.min(remainingMillis / MOVES_TO_GO + incrementMillis, remainingMillis / 2);
+        return perMove(budget);
+    }
+
+    public long getSoftLimitMillis() {
+        return this.softLimitMillis;
+    }
+
+    public long getHardLimitMillis() {
+        return this.hardLimitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "soft = " + this.softLimitMillis + " ms, hard = " + this.hardLimitMillis + " ms";
+    }
+
+}
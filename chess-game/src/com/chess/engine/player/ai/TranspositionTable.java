@@ -0,0 +1,130 @@
+package com.chess.engine.player.ai;
+
+import java.util.Arrays;
+
+// fixed size table of search results keyed by Zobrist key. Every key maps to a pair of entries,
+// the first only replaced by a search at least as deep (or left over from an earlier search),
+// the second always replaced, so deep results survive while recent shallow ones still get cached.
+// An entry's data is packed into a single long, 0 meaning there is no entry.
+// The table can be shared by search threads without locking: an entry is stored as the pair
+// (key ^ data, data), so a probe racing with a store sees a key that does not match and treats
+// the torn entry as a miss instead of returning another position's score
+public final class TranspositionTable {
+
+    public static final int DEFAULT_SIZE_MB = 16;
+    public static final long NO_ENTRY = 0L;
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int BYTES_PER_ENTRY = 8 + 8 + 1;
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int MOVE_BITS = 26;
+    private static final int SCORE_BITS = 28;
+    private static final int DEPTH_BITS = 8;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + SCORE_BITS;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+    private static final int MAX_SCORE = (1 << (SCORE_BITS - 1)) - 1;
+
+    private final long[] table;
+    //only steers replacement, so racy reads and writes of it are harmless
+    private final byte[] generations;
+    private final int slotMask;
+    private volatile byte generation;
+
+    public TranspositionTable(final int sizeInMB) {
+        final long budget = (long) sizeInMB * 1024 * 1024;
+        final int numEntries = (int) Long.highestOneBit(Math.max(2, Math.min(budget / BYTES_PER_ENTRY, 1 << 30)));
+        this.table = new long[numEntries * LONGS_PER_ENTRY];
+        this.generations = new byte[numEntries];
+        this.slotMask = (numEntries >>> 1) - 1;
+        this.generation = 0;
+    }
+
+    //called once per search, entries from older searches are the first to be replaced
+    public void newSearch() {
+        this.generation++;
+    }
+
+    //not safe to call while a search is using the table
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+        Arrays.fill(this.generations, (byte) 0);
+        this.generation = 0;
+    }
+
+    public int size() {
+        return this.generations.length;
+    }
+
+    public long probe(final long key) {
+        final int index = index(key);
+        final long entry = readEntry(index, key);
+        return entry != NO_ENTRY ? entry : readEntry(index + 1, key);
+    }
+
+    public void store(final long key,
+                      final int depth,
+                      final int bound,
+                      final int score,
+                      final int move) {
+        final int index = index(key);
+        final byte currentGeneration = this.generation;
+        final long preferred = this.table[index * LONGS_PER_ENTRY + 1];
+        final int target;
+        if (preferred == NO_ENTRY || (this.table[index * LONGS_PER_ENTRY] ^ preferred) == key ||
+            depth >= getDepth(preferred) || this.generations[index] != currentGeneration) {
+            target = index;
+        } else {
+            target = index + 1;
+        }
+        //a fail low does not know its best move, so keep the one an earlier search found here
+        final int bestMove = move == 0 ? getMove(readEntry(target, key)) : move;
+        final long data = pack(depth, bound, score, bestMove);
+        this.table[target * LONGS_PER_ENTRY] = key ^ data;
+        this.table[target * LONGS_PER_ENTRY + 1] = data;
+        this.generations[target] = currentGeneration;
+    }
+
+    public static int getMove(final long entry) {
+        return (int) (entry & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int getScore(final long entry) {
+        //shift up then back down to sign extend the 28 bit score
+        return (int) (entry << (64 - DEPTH_SHIFT) >> (64 - SCORE_BITS));
+    }
+
+    public static int getDepth(final long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & ((1L << DEPTH_BITS) - 1));
+    }
+
+    public static int getBound(final long entry) {
+        return (int) (entry >>> BOUND_SHIFT);
+    }
+
+    //scores past the 28 bits an entry holds only come from infinite window edges, which stay valid bounds when clamped
+    private static long pack(final int depth,
+                             final int bound,
+                             final int score,
+                             final int move) {
+        return ((long) bound << BOUND_SHIFT) |
+               ((long) Math.min(depth, (1 << DEPTH_BITS) - 1) << DEPTH_SHIFT) |
+               (((long) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score)) & ((1L << SCORE_BITS) - 1)) << SCORE_SHIFT) |
+               ((long) move & ((1L << MOVE_BITS) - 1));
+    }
+
+    private long readEntry(final int index,
+                           final long key) {
+        final long data = this.table[index * LONGS_PER_ENTRY + 1];
+        final long checkedKey = this.table[index * LONGS_PER_ENTRY] ^ data;
+        return data != NO_ENTRY && checkedKey == key ? data : NO_ENTRY;
+    }
+
+    private int index(final long key) {
+        return ((int) (key ^ (key >>> 32)) & this.slotMask) << 1;
+    }
+
+}
@@ -0,0 +1,394 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveTransition;
+import com.chess.engine.player.ai.AlphaBetaWithMoveOrdering.MoveSorter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Observable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.chess.engine.board.Move.MoveFactory;
+
+// AlphaBetaWithMoveOrdering split with the young brothers wait concept: at every node deep enough to be
+// worth it, the eldest son is searched serially first, then its younger brothers become fork join tasks
+// searched in parallel with the window the eldest established. Brothers share a split point holding the
+// window, and a cutoff there aborts every brother and everything they have split below themselves.
+// Moves are ordered as AlphaBetaWithMoveOrdering orders them, with each pool thread keeping its own killers
+// and history, so on one thread both search the same tree
+public class YoungBrothersWaitAlphaBeta extends Observable implements MoveStrategy {
+
+    //below this depth forking costs more than searching the brothers serially
+    private static final int MIN_SPLIT_DEPTH = 2;
+
+    private final BoardEvaluator evaluator;
+    private final ForkJoinPool pool;
+    private final int searchDepth;
+    private final MoveSorter moveSorter;
+    private final Map<Thread, Worker> workers;
+    private final LongAdder boardsEvaluated;
+    private final LongAdder cutOffsProduced;
+    private long executionTime;
+
+    public YoungBrothersWaitAlphaBeta(final int searchDepth) {
+        this(searchDepth, ForkJoinPool.commonPool());
+    }
+
+    public YoungBrothersWaitAlphaBeta(final int searchDepth,
+                                      final ForkJoinPool pool) {
+        this.evaluator = StandardBoardEvaluator.get();
+        this.pool = pool;
+        this.searchDepth = searchDepth;
+        this.moveSorter = MoveSorter.SORT;
+        this.workers = new ConcurrentHashMap<>();
+        this.boardsEvaluated = new LongAdder();
+        this.cutOffsProduced = new LongAdder();
+    }
+
+    @Override
+    public String toString() {
+        return "YBWC";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated.sum();
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        this.boardsEvaluated.reset();
+        this.cutOffsProduced.reset();
+        for (final Worker worker : this.workers.values()) {
+            worker.cutoffHistory.newSearch();
+        }
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth +
+                           " on " + this.pool.getParallelism() + " threads");
+        final List<MoveTransition> children = rootChildren(board);
+        if (children.isEmpty()) {
+            return MoveFactory.getNullMove();
+        }
+        final boolean isWhite = board.currentPlayer().getColor().isWhite();
+        final SplitPoint root = new SplitPoint(null, isWhite, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        //forked tasks go to the pool of the thread forking them, so the root has to run inside the pool
+        this.pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                root.offer(children.get(0).getTransitionMove(), search(root, children.get(0), worker()));
+                final List<BrotherTask> brothers = new ArrayList<>();
+                for (int i = 1; i < children.size(); i++) {
+                    brothers.add(new BrotherTask(root, children.get(i), searchDepth - 1));
+                }
+                invokeAll(brothers);
+            }
+
+            private int search(final SplitPoint root,
+                               final MoveTransition child,
+                               final Worker worker) {
+                return isWhite ?
+                        min(child.getToBoard(), searchDepth - 1, root.getHighest(), root.getLowest(), root, worker) :
+                        max(child.getToBoard(), searchDepth - 1, root.getHighest(), root.getLowest(), root, worker);
+            }
+        });
+        final Move bestMove = root.getBestMove();
+        this.executionTime = System.currentTimeMillis() - startTime;
+        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +getNumBoardsEvaluated()+
+                " time taken = " + this.executionTime /1000+ " rate = " +(1000 * ((double)getNumBoardsEvaluated()/ this.executionTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, eval rate = %.1f cutoffCount = %d\n", board.currentPlayer(),
+                bestMove, getNumBoardsEvaluated(), this.executionTime, (1000 * ((double)getNumBoardsEvaluated()/this.executionTime)),
+                this.cutOffsProduced.sum());
+        setChanged();
+        notifyObservers(result);
+        return bestMove;
+    }
+
+    private int max(final Board board,
+                    final int depth,
+                    final int highest,
+                    final int lowest,
+                    final SplitPoint splitPoint,
+                    final Worker worker) {
+        if (splitPoint.isCutOff()) {
+            //a brother of some ancestor already refuted it, whatever is returned here is thrown away
+            return highest;
+        }
+        if (depth == 0 || BoardUtils.isEndGame(board)) {
+            this.boardsEvaluated.increment();
+            return this.evaluator.evaluate(board, depth);
+        }
+        final LegalMovePicker picker = pickMoves(board, depth, worker);
+        final MoveTransition eldest = nextChild(board, picker);
+        int currentHighest = Math.max(highest, min(eldest.getToBoard(), depth - 1, highest, lowest, splitPoint, worker));
+        if (lowest <= currentHighest) {
+            recordCutoff(eldest.getTransitionMove(), depth, worker);
+            worker.pop();
+            return currentHighest;
+        }
+        if (depth >= MIN_SPLIT_DEPTH) {
+            final List<MoveTransition> brothers = remainingChildren(board, picker);
+            worker.pop();
+            return brothers.isEmpty() ? currentHighest :
+                    split(splitPoint, true, brothers, depth - 1, currentHighest, lowest);
+        }
+        for (MoveTransition child = nextChild(board, picker); child != null; child = nextChild(board, picker)) {
+            currentHighest = Math.max(currentHighest, min(child.getToBoard(), depth - 1, currentHighest, lowest, splitPoint, worker));
+            if (lowest <= currentHighest) {
+                recordCutoff(child.getTransitionMove(), depth, worker);
+                break;
+            }
+        }
+        worker.pop();
+        return currentHighest;
+    }
+
+    private int min(final Board board,
+                    final int depth,
+                    final int highest,
+                    final int lowest,
+                    final SplitPoint splitPoint,
+                    final Worker worker) {
+        if (splitPoint.isCutOff()) {
+            //a brother of some ancestor already refuted it, whatever is returned here is thrown away
+            return lowest;
+        }
+        if (depth == 0 || BoardUtils.isEndGame(board)) {
+            this.boardsEvaluated.increment();
+            return this.evaluator.evaluate(board, depth);
+        }
+        final LegalMovePicker picker = pickMoves(board, depth, worker);
+        final MoveTransition eldest = nextChild(board, picker);
+        int currentLowest = Math.min(lowest, max(eldest.getToBoard(), depth - 1, highest, lowest, splitPoint, worker));
+        if (currentLowest <= highest) {
+            recordCutoff(eldest.getTransitionMove(), depth, worker);
+            worker.pop();
+            return currentLowest;
+        }
+        if (depth >= MIN_SPLIT_DEPTH) {
+            final List<MoveTransition> brothers = remainingChildren(board, picker);
+            worker.pop();
+            return brothers.isEmpty() ? currentLowest :
+                    split(splitPoint, false, brothers, depth - 1, highest, currentLowest);
+        }
+        for (MoveTransition child = nextChild(board, picker); child != null; child = nextChild(board, picker)) {
+            currentLowest = Math.min(currentLowest, max(child.getToBoard(), depth - 1, highest, currentLowest, splitPoint, worker));
+            if (currentLowest <= highest) {
+                recordCutoff(child.getTransitionMove(), depth, worker);
+                break;
+            }
+        }
+        worker.pop();
+        return currentLowest;
+    }
+
+    //the eldest son has been searched without a cutoff, so his younger brothers are searched in parallel
+    private int split(final SplitPoint parent,
+                      final boolean isMax,
+                      final List<MoveTransition> children,
+                      final int depth,
+                      final int highest,
+                      final int lowest) {
+        final SplitPoint splitPoint = new SplitPoint(parent, isMax, highest, lowest);
+        final List<BrotherTask> brothers = new ArrayList<>(children.size());
+        for (final MoveTransition child : children) {
+            brothers.add(new BrotherTask(splitPoint, child, depth));
+        }
+        RecursiveAction.invokeAll(brothers);
+        return isMax ? splitPoint.getHighest() : splitPoint.getLowest();
+    }
+
+    //the root moves in the order AlphaBetaWithMoveOrdering searches them
+    private List<MoveTransition> rootChildren(final Board board) {
+        final List<MoveTransition> children = new ArrayList<>();
+        for (final Move move : this.moveSorter.sort(board.currentPlayer().getLegalMoves())) {
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                children.add(moveTransition);
+            }
+        }
+        return children;
+    }
+
+    //a picker holding the node's moves, which the node pops off the worker once it is done with them
+    private LegalMovePicker pickMoves(final Board board,
+                                      final int depth,
+                                      final Worker worker) {
+        final LegalMovePicker picker = worker.push();
+        final int ply = this.searchDepth - depth;
+        picker.clear();
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            picker.add(move, AlphaBetaWithMoveOrdering.orderingScore(move, ply, worker.cutoffHistory));
+        }
+        return picker;
+    }
+
+    private void recordCutoff(final Move move,
+                              final int depth,
+                              final Worker worker) {
+        this.cutOffsProduced.increment();
+        AlphaBetaWithMoveOrdering.recordQuietCutoff(move, this.searchDepth - depth, depth, worker.cutoffHistory);
+    }
+
+    //the board of the next legal move left in the picker, null once there are none. Boards are only built as
+    //the search reaches their moves, so a cutoff leaves the rest unbuilt
+    private static MoveTransition nextChild(final Board board,
+                                            final LegalMovePicker picker) {
+        while (picker.hasNext()) {
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(picker.next());
+            if (moveTransition.getMoveStatus().isDone()) {
+                return moveTransition;
+            }
+        }
+        return null;
+    }
+
+    //the boards of the legal moves left in the picker, for the brothers of a split
+    private static List<MoveTransition> remainingChildren(final Board board,
+                                                          final LegalMovePicker picker) {
+        final List<MoveTransition> children = new ArrayList<>();
+        for (MoveTransition child = nextChild(board, picker); child != null; child = nextChild(board, picker)) {
+            children.add(child);
+        }
+        return children;
+    }
+
+    //the worker of the pool thread running the caller, looked up once per task and handed down its search
+    private Worker worker() {
+        return this.workers.computeIfAbsent(Thread.currentThread(), thread -> new Worker());
+    }
+
+    private final class BrotherTask extends RecursiveAction {
+
+        private final SplitPoint splitPoint;
+        private final MoveTransition child;
+        private final int depth;
+
+        BrotherTask(final SplitPoint splitPoint,
+                    final MoveTransition child,
+                    final int depth) {
+            this.splitPoint = splitPoint;
+            this.child = child;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.splitPoint.isCutOff()) {
+                return;
+            }
+            final Worker worker = worker();
+            final int value = this.splitPoint.isMax ?
+                    min(this.child.getToBoard(), this.depth, this.splitPoint.getHighest(), this.splitPoint.getLowest(), this.splitPoint, worker) :
+                    max(this.child.getToBoard(), this.depth, this.splitPoint.getHighest(), this.splitPoint.getLowest(), this.splitPoint, worker);
+            //the split is at the node above the brother
+            if (this.splitPoint.offer(this.child.getTransitionMove(), value)) {
+                recordCutoff(this.child.getTransitionMove(), this.depth + 1, worker);
+            }
+        }
+
+    }
+
+    //what one pool thread orders moves with: killers and history of the cutoffs it saw, as AlphaBetaWithMoveOrdering
+    //keeps them, and pickers. The pickers are a stack rather than one per depth, as a thread waiting on brothers can
+    //run another task, whose nodes then go on top of the ones waiting
+    private static final class Worker {
+
+        private final CutoffHistory cutoffHistory;
+        private LegalMovePicker[] pickers;
+        private int size;
+
+        Worker() {
+            this.cutoffHistory = new CutoffHistory();
+            this.pickers = new LegalMovePicker[CutoffHistory.MAX_PLY];
+            this.size = 0;
+        }
+
+        //a picker for a node to use until it calls pop
+        LegalMovePicker push() {
+            if (this.size == this.pickers.length) {
+                this.pickers = Arrays.copyOf(this.pickers, this.size * 2);
+            }
+            if (this.pickers[this.size] == null) {
+                this.pickers[this.size] = new LegalMovePicker();
+            }
+            return this.pickers[this.size++];
+        }
+
+        void pop() {
+            this.size--;
+        }
+
+    }
+
+    //the window brothers share. Values offered once this or any enclosing split point is cut off
+    //come from aborted searches and are ignored
+    private static final class SplitPoint {
+
+        private final SplitPoint parent;
+        private final boolean isMax;
+        private volatile boolean cutOff;
+        private int highest;
+        private int lowest;
+        private Move bestMove;
+
+        SplitPoint(final SplitPoint parent,
+                   final boolean isMax,
+                   final int highest,
+                   final int lowest) {
+            this.parent = parent;
+            this.isMax = isMax;
+            this.cutOff = false;
+            this.highest = highest;
+            this.lowest = lowest;
+            this.bestMove = MoveFactory.getNullMove();
+        }
+
+        boolean isCutOff() {
+            for (SplitPoint splitPoint = this; splitPoint != null; splitPoint = splitPoint.parent) {
+                if (splitPoint.cutOff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized int getHighest() {
+            return this.highest;
+        }
+
+        synchronized int getLowest() {
+            return this.lowest;
+        }
+
+        synchronized Move getBestMove() {
+            return this.bestMove;
+        }
+
+        //returns whether this value caused the cutoff
+        synchronized boolean offer(final Move move,
+                                   final int value) {
+            if (isCutOff()) {
+                return false;
+            }
+            if (this.isMax && value > this.highest) {
+                this.highest = value;
+                this.bestMove = move;
+            } else if (!this.isMax && value < this.lowest) {
+                this.lowest = value;
+                this.bestMove = move;
+            }
+            this.cutOff = this.lowest <= this.highest;
+            return this.cutOff;
+        }
+
+    }
+
+}
@@ -14,6 +14,8 @@ class GameSetup extends JDialog {
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner searchThreadsSpinner;
+    private JSpinner moveTimeSpinner;
 
     private static final String HUMAN_TEXT = "Human";
     private static final String COMPUTER_TEXT = "Computer";
@@ -47,6 +49,10 @@ class GameSetup extends JDialog {
 
         myPanel.add(new JLabel("Search"));
         this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(6, 0, Integer.MAX_VALUE, 1));
+        this.searchThreadsSpinner = addLabeledSpinner(myPanel, "Search Threads",
+                new SpinnerNumberModel(1, 1, Runtime.getRuntime().availableProcessors(), 1));
+        //0 searches to the fixed depth above, anything else thinks for that long whatever depth it reaches
+        this.moveTimeSpinner = addLabeledSpinner(myPanel, "Move Time (ms)", new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 500));
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -108,4 +114,12 @@ class GameSetup extends JDialog {
     int getSearchDepth() {
         return (Integer)this.searchDepthSpinner.getValue();
     }
+
+    int getSearchThreads() {
+        return (Integer)this.searchThreadsSpinner.getValue();
+    }
+
+    int getMoveTime() {
+        return (Integer)this.moveTimeSpinner.getValue();
+    }
 }
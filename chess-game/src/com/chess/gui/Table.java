@@ -5,7 +5,11 @@ import com.chess.engine.board.Move.MoveFactory;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.Player;
 import com.chess.engine.player.ai.StandardBoardEvaluator;
+import com.chess.engine.player.ai.IterativeDeepening;
+import com.chess.engine.player.ai.LazySMP;
 import com.chess.engine.player.ai.StockAlphaBeta;
+import com.chess.engine.player.ai.TimeControl;
+import com.chess.engine.player.ai.TranspositionTable;
 import com.google.common.collect.Lists;
 
 import javax.imageio.ImageIO;
@@ -31,6 +35,7 @@ public final class Table extends Observable {
     private final BoardPanel boardPanel;
     private final MoveLog moveLog;
     private final GameSetup gameSetup;
+    private final TranspositionTable transpositionTable;
     private Board chessBoard;
     private Move computerMove;
     private Piece sourceTile;
@@ -48,6 +53,7 @@ public final class Table extends Observable {
     private final Dimension BOARD_PANEL_DIMENSION = new Dimension(frameLength*(2/3), frameLength*(7/12));
     private final Dimension TILE_PANEL_DIMENSION = new Dimension(frameLength/60, frameLength/60);
 
+    private static final int TRANSPOSITION_TABLE_SIZE_MB = 64;
     private static final Table INSTANCE = new Table();
 
     private Table() {
@@ -67,6 +73,7 @@ public final class Table extends Observable {
         this.moveLog = new MoveLog();
         this.addObserver(new TableGameAIWatcher());
         this.gameSetup = new GameSetup(this.gameFrame, true);
+        this.transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_SIZE_MB);
         this.gameFrame.add(this.takenPiecesPanel, BorderLayout.WEST);
         this.gameFrame.add(this.boardPanel, BorderLayout.CENTER);
         this.gameFrame.add(this.gameHistoryPanel, BorderLayout.EAST);
@@ -114,6 +121,10 @@ public final class Table extends Observable {
         return this.gameSetup;
     }
 
+    private TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
     public void show() {
         Table.get().getMoveLog().clear();
         Table.get().getGameHistoryPanel().redo(chessBoard, Table.get().getMoveLog());
@@ -283,6 +294,7 @@ public final class Table extends Observable {
             this.chessBoard = this.chessBoard.currentPlayer().unMakeMove(lastMove).getToBoard();
         }
         this.computerMove = null;
+        this.transpositionTable.clear();
         Table.get().getMoveLog().clear();
         Table.get().getGameHistoryPanel().redo(chessBoard, Table.get().getMoveLog());
         Table.get().getTakenPiecesPanel().redo(Table.get().getMoveLog());
@@ -319,8 +331,7 @@ public final class Table extends Observable {
                            final Object arg) {
 
             if (Table.get().getGameSetup().isAIPlayer(Table.get().getGameBoard().currentPlayer()) &&
-                !Table.get().getGameBoard().currentPlayer().isInCheckMate() &&
-                !Table.get().getGameBoard().currentPlayer().isInStaleMate()) {
+                !BoardUtils.isEndGame(Table.get().getGameBoard())) {
                 System.out.println(Table.get().getGameBoard().currentPlayer() + " is set to AI, thinking....");
                 final AIThinkTank thinkTank = new AIThinkTank();
                 thinkTank.execute();
@@ -338,6 +349,20 @@ public final class Table extends Observable {
                         JOptionPane.INFORMATION_MESSAGE);
             }
 
+            if (!Table.get().getGameBoard().currentPlayer().isInCheckMate() &&
+                Table.get().getGameBoard().isThreefoldRepetition()) {
+                JOptionPane.showMessageDialog(Table.get().getBoardPanel(),
+                        "Game Over: Draw by threefold repetition!", "Game Over",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+
+            if (!Table.get().getGameBoard().currentPlayer().isInCheckMate() &&
+                Table.get().getGameBoard().isFiftyMoveRule()) {
+                JOptionPane.showMessageDialog(Table.get().getBoardPanel(),
+                        "Game Over: Draw by the fifty move rule!", "Game Over",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+
         }
 
     }
@@ -355,9 +380,23 @@ public final class Table extends Observable {
         @Override
         protected Move doInBackground() {
             final Move bestMove;
-            final StockAlphaBeta strategy = new StockAlphaBeta(Table.get().getGameSetup().getSearchDepth());
-            strategy.addObserver(Table.get().getDebugPanel());
-            bestMove = strategy.execute(Table.get().getGameBoard());
+            final int searchThreads = Table.get().getGameSetup().getSearchThreads();
+            final int moveTime = Table.get().getGameSetup().getMoveTime();
+            if (moveTime > 0) {
+                final IterativeDeepening strategy = new IterativeDeepening(TimeControl.perMove(moveTime));
+                strategy.addObserver(Table.get().getDebugPanel());
+                bestMove = strategy.execute(Table.get().getGameBoard());
+            } else if (searchThreads > 1) {
+                final LazySMP strategy = new LazySMP(Table.get().getGameSetup().getSearchDepth(), searchThreads,
+                                                     Table.get().getTranspositionTable());
+                strategy.addObserver(Table.get().getDebugPanel());
+                bestMove = strategy.execute(Table.get().getGameBoard());
+            } else {
+                final StockAlphaBeta strategy = new StockAlphaBeta(Table.get().getGameSetup().getSearchDepth(),
+                                                                   Table.get().getTranspositionTable());
+                strategy.addObserver(Table.get().getDebugPanel());
+                bestMove = strategy.execute(Table.get().getGameBoard());
+            }
 
             return bestMove;
         }
@@ -633,15 +672,9 @@ public final class Table extends Observable {
         }
 
         private void assignTileColor() {
-            if (BoardUtils.INSTANCE.FIRST_ROW.get(this.tileId) ||
-                BoardUtils.INSTANCE.THIRD_ROW.get(this.tileId) ||
-                BoardUtils.INSTANCE.FIFTH_ROW.get(this.tileId) ||
-                BoardUtils.INSTANCE.SEVENTH_ROW.get(this.tileId)) {
+            if (BoardUtils.getRow(this.tileId) % 2 == 0) {
                 setBackground(this.tileId % 2 == 0 ? lightTileColor : darkTileColor);
-            } else if(BoardUtils.INSTANCE.SECOND_ROW.get(this.tileId) ||
-                      BoardUtils.INSTANCE.FOURTH_ROW.get(this.tileId) ||
-                      BoardUtils.INSTANCE.SIXTH_ROW.get(this.tileId)  ||
-                      BoardUtils.INSTANCE.EIGHTH_ROW.get(this.tileId)) {
+            } else {
                 setBackground(this.tileId % 2 != 0 ? lightTileColor : darkTileColor);
             }
         }